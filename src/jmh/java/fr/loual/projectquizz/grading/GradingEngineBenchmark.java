@@ -0,0 +1,110 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.AnswerView;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.play.QuizzSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading of a whole submission with the compiled matchers, against a grading comparing the raw answers
+ * of each question on every submission
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingEngineBenchmark {
+
+    private static final String[] WORDS = {"élève", "château", "forêt", "boulangerie", "ordinateur", "Révolution",
+            "photosynthèse", "mitochondrie", "Pythagore", "Méditerranée"};
+
+    @Param({"50"})
+    private int questionCount;
+
+    private QuizzView view;
+    private QuizzSnapshot quizz;
+    private GradingEngine engine;
+    private List<PostedAnswer> submission;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        view = new QuizzView(1L, "benchmark", null, "alex").setQuestions(new ArrayList<>());
+        submission = new ArrayList<>(questionCount);
+        long answerId = 1;
+        for (long q = 1; q <= questionCount; q++) {
+            boolean choice = q % 2 == 0;
+            QuestionView question = new QuestionView(q, "question " + q, choice, !choice, 1L);
+            List<Long> correctIds = new ArrayList<>();
+            for (int a = 0; a < 6; a++) {
+                boolean correct = choice ? a % 3 == 0 : a == 0;
+                String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+                question.getAnswers().add(new AnswerView(answerId, text, q, correct));
+                if (correct) {
+                    correctIds.add(answerId);
+                }
+                answerId++;
+            }
+            view.getQuestions().add(question);
+            PostedAnswer answer = new PostedAnswer().setQuestionId(q);
+            if (choice) {
+                submission.add(answer.setAnswerIds(correctIds));
+            } else {
+                // a typo and a missing accent, still right with an edit distance of 1
+                String expected = question.getAnswers().get(0).getQuizzAnswer();
+                submission.add(answer.setAnswer(" " + expected.toUpperCase(Locale.ROOT).replace('É', 'E') + "x"));
+            }
+        }
+        engine = new GradingEngine(1, 5);
+        quizz = QuizzSnapshot.of(view, engine);
+    }
+
+    @Benchmark
+    public int compiled() {
+        return engine.grade(quizz, submission).getScore();
+    }
+
+    @Benchmark
+    public int compileAndGrade() {
+        return engine.grade(QuizzSnapshot.of(view, engine), submission).getScore();
+    }
+
+    @Benchmark
+    public int uncompiled() {
+        int score = 0;
+        for (PostedAnswer answer : submission) {
+            for (QuestionView question : view.getQuestions()) {
+                if (question.getId().equals(answer.getQuestionId()) && matches(question, answer)) {
+                    score++;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static boolean matches(QuestionView question, PostedAnswer answer) {
+        if (question.getChoiceType()) {
+            Set<Long> expected = new HashSet<>();
+            question.getAnswers().stream().filter(AnswerView::getCorrect).forEach(option -> expected.add(option.getId()));
+            return new HashSet<>(answer.getAnswerIds()).equals(expected);
+        }
+        String given = TextNormalizer.normalize(answer.getAnswer());
+        return question.getAnswers().stream().filter(AnswerView::getCorrect)
+                .anyMatch(option -> EditDistance.within(TextNormalizer.normalize(option.getQuizzAnswer()), given, 1));
+    }
+
+}
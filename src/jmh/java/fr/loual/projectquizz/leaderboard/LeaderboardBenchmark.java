@@ -0,0 +1,67 @@
+package fr.loual.projectquizz.leaderboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a leaderboard under many concurrent writers, alone and mixed with rank and top readers
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    @Param({"100000"})
+    private int players;
+
+    private Leaderboard board;
+
+    @Setup
+    public void setup() {
+        board = new Leaderboard(100, 64);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long userId = 0; userId < players; userId++) {
+            board.offer(userId, "player" + userId, random.nextInt(50), userId);
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int offer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = random.nextInt(players);
+        return board.offer(userId, "player", random.nextInt(64), System.nanoTime());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public int mixedOffer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = random.nextInt(players);
+        return board.offer(userId, "player", random.nextInt(64), System.nanoTime());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Leaderboard.Ranked mixedRank() {
+        return board.rank(ThreadLocalRandom.current().nextInt(players));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Leaderboard.Ranked> mixedTop() {
+        return board.top(10);
+    }
+
+}
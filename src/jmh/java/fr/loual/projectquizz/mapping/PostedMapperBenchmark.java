@@ -0,0 +1,77 @@
+package fr.loual.projectquizz.mapping;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a batch of posted questions with their answers and tags, field by field against the reflective
+ * ModelMapper the services used before. The tags are already resolved, only the mapping itself is measured.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostedMapperBenchmark {
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private List<PostedQuestion> batch;
+    private Quizz quizz;
+    private Map<String, Tags> tags;
+    private PostedMapper mapper;
+    private ModelMapper modelMapper;
+
+    @Setup
+    public void setup() {
+        tags = new HashMap<>();
+        for (long i = 0; i < 20; i++) {
+            tags.put("tag" + i, new Tags(i, "tag" + i));
+        }
+        quizz = new Quizz().setId(1L).setDescription("benchmark").setUser(new AppUser());
+        batch = new ArrayList<>(batchSize);
+        for (int q = 0; q < batchSize; q++) {
+            List<PostedAnswer> answers = new ArrayList<>(4);
+            for (int a = 0; a < 4; a++) {
+                answers.add(new PostedAnswer().setAnswer("answer " + a).setCorrect(a == 0));
+            }
+            batch.add(new PostedQuestion().setQuizzQuestion("question " + q).setChoiceType(true).setFreeResponse(false)
+                    .setQuizzId(1L).setTags(List.of("tag" + q % 20, "tag" + (q + 7) % 20)).setAnswer(answers));
+        }
+        // the pure mapping methods do not touch the entity manager nor the repository
+        mapper = new PostedMapper(null, null, null);
+        modelMapper = new ModelMapper();
+    }
+
+    @Benchmark
+    public void postedMapper(Blackhole blackhole) {
+        for (PostedQuestion posted : batch) {
+            blackhole.consume(mapper.toQuestion(posted, quizz, quizz.getUser(), tags));
+        }
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole blackhole) {
+        for (PostedQuestion posted : batch) {
+            blackhole.consume(modelMapper.map(posted, Question.class));
+        }
+    }
+
+}
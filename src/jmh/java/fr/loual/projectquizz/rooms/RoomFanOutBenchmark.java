@@ -0,0 +1,269 @@
+package fr.loual.projectquizz.rooms;
+
+import fr.loual.projectquizz.QuizzProjectApplication;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.security.jwt.JwtUtils;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local load generator of the live rooms: starts the application on a random port, opens a room on a
+ * generated quizz and connects many server-sent events subscribers. Each measured operation is the host
+ * moving to the next question until every subscriber has received it, the reception latency of each
+ * subscriber is summed up at the end. With {@code answering}, subscribers answer every question, so the
+ * answer intake runs under load too.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+@Fork(1)
+public class RoomFanOutBenchmark {
+
+    private static final Pattern QUESTION_ID = Pattern.compile("\"questionId\":(\\d+)");
+    private static final Pattern FIRST_CHOICE = Pattern.compile("\"choices\":\\[\\{\"id\":(\\d+)");
+
+    @Param({"1000"})
+    private int subscribers;
+    @Param({"false"})
+    private boolean answering;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String base;
+    private String token;
+    private String roomId;
+    private Round round;
+    private final List<Long> allLatencies = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = SpringApplication.run(QuizzProjectApplication.class,
+                "--server.port=0", "--logging.level.root=WARN", "--spring.main.banner-mode=off",
+                "--fr.loual.rooms.maxSubscribers=" + Math.max(subscribers, 5000),
+                // subscribers and their answers connect in bursts, a short accept queue delays them by whole seconds
+                "--server.tomcat.max-connections=" + (subscribers * 3),
+                "--server.tomcat.accept-count=" + (subscribers * 2));
+        base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        AppUser user = context.getBean(AppUserRepository.class).findByUsername("alex").orElseThrow();
+        // one question per warmup and measurement iteration
+        Quizz quizz = createQuizz(context, user, 100);
+        token = "Bearer " + context.getBean(JwtUtils.class).generateJwtToken(user.getUsername());
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+        roomId = post(base + "/rooms/quizz/" + quizz.getId())
+                .replaceAll(".*\"roomId\":\"([^\"]+)\".*", "$1");
+
+        round = new Round(subscribers);
+        AtomicInteger connected = new AtomicInteger();
+        for (int i = 0; i < subscribers; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/rooms/" + roomId + "/events"))
+                    .header("Authorization", token).header("Accept", "text/event-stream").build();
+            // the response future of a line subscriber only completes with the stream, the reader counts the connection
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventReader(i, round, connected,
+                    client, answering ? base + "/rooms/" + roomId + "/answers" : null, token)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (connected.get() < subscribers && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        System.out.printf("%n%d subscribers connected%n", connected.get());
+    }
+
+    @Benchmark
+    public long nextQuestion() throws Exception {
+        round.start();
+        post(base + "/rooms/" + roomId + "/next");
+        if (!round.await(30)) {
+            throw new IllegalStateException("some subscribers did not receive the question in time");
+        }
+        long[] latencies = round.latencies();
+        for (long latency : latencies) {
+            allLatencies.add(latency);
+        }
+        return latencies[latencies.length - 1];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        // the room sends its end event and closes the streams before the server stops
+        while (!post(base + "/rooms/" + roomId + "/next").contains("error")) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(1000);
+        long[] latencies = allLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%nper subscriber latency over %d receptions: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latencies.length, percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 100));
+        context.close();
+    }
+
+    private static Quizz createQuizz(ConfigurableApplicationContext context, AppUser user, int questions) {
+        Quizz quizz = context.getBean(QuizzRepository.class)
+                .save(new Quizz().setDescription("load").setCommentary("room load").setUser(user));
+        QuestionRepository questionRepository = context.getBean(QuestionRepository.class);
+        AnswerRepository answerRepository = context.getBean(AnswerRepository.class);
+        for (int i = 0; i < questions; i++) {
+            Question question = questionRepository.save(new Question().setQuizzQuestion("question " + i)
+                    .setChoiceType(true).setFreeResponse(false).setUser(user).setQuizz(quizz));
+            for (int j = 0; j < 4; j++) {
+                answerRepository.save(new Answer().setQuizzAnswer("answer " + j).setCorrect(j == 0).setQuestion(question));
+            }
+        }
+        return quizz;
+    }
+
+    private String post(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Authorization", token)
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * reception times of the current question
+     */
+    private static final class Round {
+
+        private final AtomicLongArray received;
+        private volatile long startNanos;
+        private volatile CountDownLatch latch;
+
+        private Round(int subscribers) {
+            this.received = new AtomicLongArray(subscribers);
+        }
+
+        private void start() {
+            for (int i = 0; i < received.length(); i++) {
+                received.set(i, 0L);
+            }
+            latch = new CountDownLatch(received.length());
+            startNanos = System.nanoTime();
+        }
+
+        private void received(int subscriber) {
+            if (received.compareAndSet(subscriber, 0L, System.nanoTime() - startNanos)) {
+                latch.countDown();
+            }
+        }
+
+        private boolean await(int seconds) throws InterruptedException {
+            return latch.await(seconds, TimeUnit.SECONDS);
+        }
+
+        private long[] latencies() {
+            long[] values = new long[received.length()];
+            int count = 0;
+            for (int i = 0; i < received.length(); i++) {
+                if (received.get(i) > 0) {
+                    values[count++] = received.get(i);
+                }
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * reads the event stream of a subscriber, records the question receptions and answers them
+     */
+    private static final class EventReader implements Flow.Subscriber<String> {
+
+        private final int index;
+        private final Round round;
+        private final AtomicInteger connected;
+        private final HttpClient client;
+        private final String answerUrl;
+        private final String token;
+        private final List<CompletableFuture<?>> pending = new ArrayList<>();
+        private String event;
+        private boolean joined;
+
+        private EventReader(int index, Round round, AtomicInteger connected, HttpClient client, String answerUrl, String token) {
+            this.index = index;
+            this.round = round;
+            this.connected = connected;
+            this.client = client;
+            this.answerUrl = answerUrl;
+            this.token = token;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!joined) {
+                // the first frame is the join comment, or the current question for a late subscriber
+                joined = true;
+                connected.incrementAndGet();
+            }
+            if (line.startsWith("event:")) {
+                event = line.substring(6);
+            } else if (line.startsWith("data:") && "question".equals(event)) {
+                round.received(index);
+                if (answerUrl == null) {
+                    return;
+                }
+                Matcher question = QUESTION_ID.matcher(line);
+                Matcher choice = FIRST_CHOICE.matcher(line);
+                if (question.find() && choice.find()) {
+                    String json = "{\"questionId\":" + question.group(1) + ",\"answerIds\":[" + choice.group(1) + "]}";
+                    pending.removeIf(CompletableFuture::isDone);
+                    pending.add(client.sendAsync(HttpRequest.newBuilder(URI.create(answerUrl))
+                            .header("Authorization", token).header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.discarding()));
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("subscriber " + index + " failed: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+            // the room sends its end event then closes the streams
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.model.dtos.TagSuggestion;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of the tag autocomplete (p99 in the SampleTime output), with tags of skewed usage
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TagAutocompleteBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"10000", "200000"})
+    private int tagCount;
+
+    private TagAutocomplete autocomplete;
+    private String[] prefixes;
+
+    @Setup
+    public void setup() {
+        TagIndex index = new TagIndex(null, null, null, null);
+        ReflectionTestUtils.setField(index, "built", true);
+        Random random = new Random(42);
+        String[] names = new String[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 4 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            names[i] = name.append('-').append(i).toString();
+            index.tagSaved((long) i, names[i]);
+        }
+        // zipf-like usage : the first tags are used by many quizzes
+        for (long quizz = 0; quizz < tagCount * 2L; quizz++) {
+            int rank = (int) Math.min(tagCount - 1, Math.abs(random.nextGaussian()) * tagCount / 20);
+            index.quizzTagsChanged(quizz, Map.of((long) rank, names[rank]));
+        }
+        autocomplete = new TagAutocomplete(index);
+        autocomplete.rebuild();
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = names[random.nextInt(tagCount)];
+            prefixes[i] = name.substring(0, 1 + random.nextInt(3));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        autocomplete.destroy();
+    }
+
+    @Benchmark
+    public List<TagSuggestion> suggest() {
+        return autocomplete.suggest(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)], 10);
+    }
+
+}
@@ -0,0 +1,69 @@
+package fr.loual.projectquizz.security.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rejection by the AuthEntryPoint, compared with a new ObjectMapper and map per request
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthEntryPointBenchmark {
+
+    @Param({"false", "true"})
+    private boolean expired;
+
+    private AuthEntryPoint entryPoint;
+    private MockHttpServletRequest request;
+    private AuthenticationException exception;
+
+    @Setup
+    public void setup() {
+        entryPoint = new AuthEntryPoint();
+        request = new MockHttpServletRequest("GET", "/quizz/1");
+        request.setServletPath("/quizz/1");
+        if (expired) {
+            request.setAttribute(SecurityConstants.EXPIRED, "JWT expired at 2022-11-20T10:15:30Z");
+        }
+        exception = new InsufficientAuthenticationException("Full authentication is required to access this resource");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse preEncoded() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        entryPoint.commence(request, response, exception);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse objectMapperPerRequest() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        String expiredMessage = (String) request.getAttribute(SecurityConstants.EXPIRED);
+        Map<String, Object> body = new HashMap<>();
+        body.put(SecurityConstants.STATUS, expiredMessage != null ? HttpServletResponse.SC_UNAUTHORIZED : HttpServletResponse.SC_FORBIDDEN);
+        body.put(SecurityConstants.ERROR, SecurityConstants.EXPIRED);
+        body.put(SecurityConstants.MESSAGE, expiredMessage != null ? expiredMessage : exception.getMessage());
+        body.put(SecurityConstants.PATH, request.getServletPath());
+        new ObjectMapper().writeValue(response.getOutputStream(), body);
+        return response;
+    }
+
+}
@@ -0,0 +1,61 @@
+package fr.loual.projectquizz.security.jwt;
+
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full AuthTokenFilter pass on an authenticated request, the user lookup being an in-memory stub
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean statelessAuth;
+    @Param({"0", "10000"})
+    private int tokenCacheSize;
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private Authentication authentication;
+
+    @Setup
+    public void setup() {
+        JwtUtils jwtUtils = JwtBenchmarkSupport.jwtUtils(statelessAuth, tokenCacheSize);
+        UserDetailsImpl user = JwtBenchmarkSupport.userDetails();
+        filter = new AuthTokenFilter(jwtUtils, username -> user);
+        request = new MockHttpServletRequest("GET", "/quizz/1");
+        request.addHeader(SecurityConstants.HEADER_TOKEN, SecurityConstants.TOKEN_START + jwtUtils.generateJwtToken(user));
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> authentication = SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication doFilterInternal() throws ServletException, IOException {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return authentication;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package fr.loual.projectquizz.security.jwt;
+
+import fr.loual.projectquizz.security.model.entities.AppRole;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.model.enumeration.ERole;
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+/**
+ * Fixtures shared by the security benchmarks, built without a Spring context
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public final class JwtBenchmarkSupport {
+
+    private JwtBenchmarkSupport() {
+    }
+
+    /**
+     * build a JwtUtils configured like application.properties
+     * @param statelessAuth true to embed the user id and roles in access tokens
+     * @param tokenCacheSize size of the verified token cache, 0 to disable it
+     * @return an initialized JwtUtils
+     */
+    public static JwtUtils jwtUtils(boolean statelessAuth, int tokenCacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "secret");
+        ReflectionTestUtils.setField(jwtUtils, "minuteExpiration", "15");
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheSize", tokenCacheSize);
+        ReflectionTestUtils.setField(jwtUtils, "statelessAuth", statelessAuth);
+        ReflectionTestUtils.setField(jwtUtils, "revocationBucketMinutes", 60L);
+        ReflectionTestUtils.setField(jwtUtils, "revocationExpectedPerBucket", 100000);
+        ReflectionTestUtils.setField(jwtUtils, "revocationMaxExactPerBucket", 200000);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    /**
+     * @return a user with two roles, as loaded from the database
+     */
+    public static AppUser user() {
+        AppRole user = new AppRole().setId(1L).setName(ERole.ROLE_USER);
+        AppRole moderator = new AppRole().setId(2L).setName(ERole.ROLE_MODERATOR);
+        return new AppUser(42L, "alex", "alex@email.fr", "$2a$10$7EqJtq98hPqEX7fNZaFWoO5p1eYlkD2tVbxxR1Ydm3fFN0mlvbz3e",
+                Set.of(user, moderator));
+    }
+
+    /**
+     * @return the UserDetails of {@link #user()}
+     */
+    public static UserDetailsImpl userDetails() {
+        return UserDetailsImpl.build(user());
+    }
+
+}
@@ -0,0 +1,53 @@
+package fr.loual.projectquizz.security.jwt;
+
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issue and verification cost of the tokens, with and without the verified token cache
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean statelessAuth;
+    @Param({"0", "10000"})
+    private int tokenCacheSize;
+
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = JwtBenchmarkSupport.jwtUtils(statelessAuth, tokenCacheSize);
+        user = JwtBenchmarkSupport.userDetails();
+        token = jwtUtils.generateJwtToken(user);
+    }
+
+    @Benchmark
+    public Map<String, String> generateTokenAndRefresh() {
+        return jwtUtils.generateTokenAndRefresh(user);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtils.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtils.validateToken(token, user);
+    }
+
+}
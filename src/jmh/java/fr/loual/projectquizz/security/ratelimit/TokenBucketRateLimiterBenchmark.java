@@ -0,0 +1,75 @@
+package fr.loual.projectquizz.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the signin rate limiting under contention : a hot key shared by all threads, many distinct keys,
+ * and the full filter pass on an allowed request
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TokenBucketRateLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    private int distinctKeys;
+
+    private TokenBucketRateLimiter limiter;
+    private AuthRateLimitFilter filter;
+    private String[] keys;
+    private byte[] body;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() {
+        // limits high enough for every request to be allowed, the measured cost is the bookkeeping
+        limiter = new TokenBucketRateLimiter("bench", Integer.MAX_VALUE / 2, Integer.MAX_VALUE, 100000, 600);
+        filter = new AuthRateLimitFilter(limiter,
+                new TokenBucketRateLimiter("bench-user", Integer.MAX_VALUE / 2, Integer.MAX_VALUE, 100000, 600),
+                new ObjectMapper());
+        keys = new String[distinctKeys];
+        for (int i = 0; i < distinctKeys; i++) {
+            keys[i] = "10.0." + (i >>> 8) + "." + (i & 0xff);
+        }
+        body = "{\"username\":\"alex\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8);
+        chain = (req, res) -> req.getInputStream().readAllBytes();
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return limiter.tryAcquire("10.0.0.1");
+    }
+
+    @Benchmark
+    public boolean distinctKeys() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public int signinFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/user/signin");
+        request.setServletPath("/user/signin");
+        request.setRemoteAddr(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+        request.setContent(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+
+}
@@ -0,0 +1,34 @@
+package fr.loual.projectquizz.security.services;
+
+import fr.loual.projectquizz.security.jwt.JwtBenchmarkSupport;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the principal from a loaded user
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsImplBenchmark {
+
+    private AppUser user;
+
+    @Setup
+    public void setup() {
+        user = JwtBenchmarkSupport.user();
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+
+}
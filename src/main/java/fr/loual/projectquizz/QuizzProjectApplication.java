@@ -1,5 +1,6 @@
 package fr.loual.projectquizz;
 
+import fr.loual.projectquizz.model.dtos.QuizzView;
 import fr.loual.projectquizz.model.entities.Quizz;
 import fr.loual.projectquizz.model.entities.Tags;
 import fr.loual.projectquizz.repositories.QuizzRepository;
@@ -14,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -69,13 +71,11 @@ public class QuizzProjectApplication implements CommandLineRunner {
                 .setDescription("description 1").setUser(user1);
         quizzRepository.save(quizz);
 
-        List<Quizz> quizzes2 = quizzRepository.findByTagsTagContaining("premier").orElse(new ArrayList<>());
-        log.info("2" + quizzes2);
-
-        List<Quizz> quizzes3 = quizzRepository.findAllByTagsTag("premier").orElse(new ArrayList<>());
+        PageRequest firstPage = PageRequest.of(0, 20);
+        List<QuizzView> quizzes3 = quizzRepository.findViewsByTag("premier", 0L, firstPage);
         log.info("3" + quizzes3);
 
-        List<Quizz> quizzes4 = quizzRepository.findAllByTagsTag(tag.getTag()).orElse(new ArrayList<>());
+        List<QuizzView> quizzes4 = quizzRepository.findViewsByTag(tag.getTag(), 0L, firstPage);
 
         log.info("4" + quizzes4);
 
@@ -1,15 +1,35 @@
 package fr.loual.projectquizz.configuration;
 
-import org.modelmapper.ModelMapper;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
 
 @org.springframework.context.annotation.Configuration
+@EnableScheduling
 public class Configuration {
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    /**
+     * the Hibernate second-level cache of this application context, with the regions of ehcache.xml.
+     * JCache shares a cache manager by URI, a URI per context keeps the contexts of a same JVM apart
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuration = new XmlConfiguration(getClass().getResource("/ehcache.xml"));
+        return provider.getCacheManager(URI.create("urn:quizz:hibernate:" + UUID.randomUUID()), configuration);
     }
 
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
 
 }
@@ -0,0 +1,50 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.exporting.QuizzExporter;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/export")
+@Slf4j
+public class ExportController {
+
+    private static final String RETRY_AFTER_SECONDS = "60";
+
+    private QuizzExporter quizzExporter;
+
+    /**
+     * Read - every quizz, question and answer as newline-delimited JSON, admins only.
+     * Written to the response by a task having its own timeout, the export outlasting the other async requests
+     * @param response the response the export is streamed to
+     * @return the export task, or nothing with a 503 if too many exports are running
+     */
+    @GetMapping
+    public WebAsyncTask<Void> export(HttpServletResponse response) {
+        Optional<StreamingResponseBody> export = quizzExporter.open();
+        if (export.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return null;
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"quizz-export.ndjson\"");
+        return new WebAsyncTask<>(quizzExporter.getTimeoutMillis(), () -> {
+            export.get().writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,73 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.exceptions.InvalidImportException;
+import fr.loual.projectquizz.importing.QuizzImporter;
+import fr.loual.projectquizz.model.dtos.ImportReport;
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/import")
+@Slf4j
+public class ImportController {
+
+    private static final String ERROR = "error";
+    private static final String TEXT_CSV = "text/csv";
+
+    private QuizzImporter quizzImporter;
+
+    /**
+     * Create - import quizzes, questions and answers from a JSON array streamed in the request body
+     * @param body the request body
+     * @param user the owner of the imported quizzes and questions
+     * @return the counts and throughput of the import
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importJson(InputStream body, @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(quizzImporter.importJson(body, user.getId()));
+    }
+
+    /**
+     * Create - import quizzes, questions and answers from the newline-delimited JSON of an export
+     * @param body the request body
+     * @param user the owner of the imported quizzes and questions
+     * @return the counts and throughput of the import
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importJsonLines(InputStream body, @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(quizzImporter.importJsonLines(body, user.getId()));
+    }
+
+    /**
+     * Create - import quizzes, questions and answers from CSV rows of answers streamed in the request body
+     * @param body the request body, UTF-8 encoded
+     * @param user the owner of the imported quizzes and questions
+     * @return the counts and throughput of the import
+     */
+    @PostMapping(consumes = TEXT_CSV)
+    public ResponseEntity<ImportReport> importCsv(InputStream body, @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(quizzImporter.importCsv(body, user.getId()));
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<Map<String, Object>> invalidImport(InvalidImportException e) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(ERROR, e.getMessage());
+        body.put("imported", e.getImported());
+        return ResponseEntity.badRequest().body(body);
+    }
+
+}
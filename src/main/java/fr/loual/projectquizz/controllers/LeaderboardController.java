@@ -0,0 +1,87 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.leaderboard.LeaderboardService;
+import fr.loual.projectquizz.model.dtos.LeaderboardRow;
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/leaderboards")
+@Slf4j
+public class LeaderboardController {
+
+    private static final String ERROR = "error";
+    private static final int MAX_ROWS = 100;
+
+    private LeaderboardService leaderboardService;
+
+    /**
+     * Read - the best players of a quizz
+     * @param quizzId the quizz id
+     * @param limit the number of players, at most 100
+     * @return the players, best first
+     */
+    @GetMapping("/quizz/{quizzId}")
+    public ResponseEntity<List<LeaderboardRow>> quizzTop(@PathVariable Long quizzId, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.quizzTop(quizzId, clamp(limit)));
+    }
+
+    /**
+     * Read - the rank of the authenticated player on a quizz
+     * @param quizzId the quizz id
+     * @param user the authenticated player
+     * @return the rank, or a 404 if the player never finished the quizz
+     */
+    @GetMapping("/quizz/{quizzId}/me")
+    public ResponseEntity<Object> quizzRank(@PathVariable Long quizzId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return leaderboardService.quizzRank(quizzId, user.getId())
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> notRanked());
+    }
+
+    /**
+     * Read - the best players of a tag, on the sum of their best results on the quizzes of the tag
+     * @param tag the tag
+     * @param limit the number of players, at most 100
+     * @return the players, best first
+     */
+    @GetMapping("/tags/{tag}")
+    public ResponseEntity<List<LeaderboardRow>> tagTop(@PathVariable String tag, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.tagTop(tag, clamp(limit)));
+    }
+
+    /**
+     * Read - the rank of the authenticated player on a tag
+     * @param tag the tag
+     * @param user the authenticated player
+     * @return the rank, or a 404 if the player never finished a quizz of the tag
+     */
+    @GetMapping("/tags/{tag}/me")
+    public ResponseEntity<Object> tagRank(@PathVariable String tag, @AuthenticationPrincipal UserDetailsImpl user) {
+        return leaderboardService.tagRank(tag, user.getId())
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> notRanked());
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_ROWS));
+    }
+
+    private static ResponseEntity<Object> notRanked() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(ERROR, "Not ranked"));
+    }
+
+}
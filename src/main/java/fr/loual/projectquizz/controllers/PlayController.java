@@ -0,0 +1,121 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.exceptions.PlaySessionNotFoundException;
+import fr.loual.projectquizz.exceptions.QuizzDeletedException;
+import fr.loual.projectquizz.exceptions.TooManyPlaySessionsException;
+import fr.loual.projectquizz.model.dtos.PlayQuestion;
+import fr.loual.projectquizz.model.dtos.PlayScore;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import fr.loual.projectquizz.services.PlayService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/play")
+@Slf4j
+public class PlayController {
+
+    private static final String ERROR = "error";
+
+    private PlayService playService;
+
+    /**
+     * Create - start a play session on a quizz
+     * @param quizzId the quizz id
+     * @param user the authenticated player
+     * @return the new session, or a 404 if the quizz does not exist
+     */
+    @PostMapping("/quizz/{quizzId}")
+    public ResponseEntity<Object> start(@PathVariable Long quizzId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return playService.start(quizzId, user.getUsername(), user.getId())
+                .<ResponseEntity<Object>>map(score -> ResponseEntity.status(HttpStatus.CREATED).body(score))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(ERROR, "Quizz not found")));
+    }
+
+    /**
+     * Read - the question to answer
+     * @param sessionId the session id
+     * @param user the authenticated player
+     * @return the question, or a 204 once all the questions are answered
+     */
+    @GetMapping("/{sessionId}/next")
+    public ResponseEntity<PlayQuestion> next(@PathVariable String sessionId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return playService.next(sessionId, user.getUsername())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Update - answer the current question
+     * @param sessionId the session id
+     * @param answer the answer, its question id must be the current question
+     * @param user the authenticated player
+     * @return the score after the answer
+     */
+    @PostMapping("/{sessionId}/answers")
+    public ResponseEntity<PlayScore> submit(@PathVariable String sessionId, @RequestBody PostedAnswer answer,
+                                            @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(playService.submit(sessionId, user.getUsername(), answer));
+    }
+
+    /**
+     * Update - answer all the remaining questions at once
+     * @param sessionId the session id
+     * @param answers the answers, each with its question id
+     * @param user the authenticated player
+     * @return the score after the answers
+     */
+    @PostMapping("/{sessionId}/answers/batch")
+    public ResponseEntity<PlayScore> submitAll(@PathVariable String sessionId, @RequestBody List<PostedAnswer> answers,
+                                               @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(playService.submitAll(sessionId, user.getUsername(), answers));
+    }
+
+    /**
+     * Delete - end the session and save its result
+     * @param sessionId the session id
+     * @param user the authenticated player
+     * @return the final score, or a 410 if the quizz was deleted during the session
+     */
+    @PostMapping("/{sessionId}/finish")
+    public ResponseEntity<PlayScore> finish(@PathVariable String sessionId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(playService.finish(sessionId, user.getUsername()));
+    }
+
+    @ExceptionHandler(PlaySessionNotFoundException.class)
+    public ResponseEntity<Map<String, String>> sessionNotFound(PlaySessionNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(ERROR, e.getMessage()));
+    }
+
+    @ExceptionHandler(QuizzDeletedException.class)
+    public ResponseEntity<Map<String, String>> quizzDeleted(QuizzDeletedException e) {
+        return ResponseEntity.status(HttpStatus.GONE).body(Map.of(ERROR, e.getMessage()));
+    }
+
+    @ExceptionHandler(TooManyPlaySessionsException.class)
+    public ResponseEntity<Map<String, String>> tooManySessions(TooManyPlaySessionsException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(ERROR, e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(ERROR, e.getMessage()));
+    }
+
+}
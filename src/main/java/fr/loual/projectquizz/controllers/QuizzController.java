@@ -1,19 +1,190 @@
 package fr.loual.projectquizz.controllers;
 
+import fr.loual.projectquizz.documents.QuizzDocument;
+import fr.loual.projectquizz.documents.QuizzDocumentCache;
+import fr.loual.projectquizz.model.dtos.KeysetPage;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.dtos.SearchHit;
+import fr.loual.projectquizz.search.FullTextSearch;
+import fr.loual.projectquizz.services.QuizzReadService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @AllArgsConstructor
 @RequestMapping("/quizz")
 @Slf4j
 public class QuizzController {
 
+    private static final String ERROR = "error";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private QuizzReadService quizzReadService;
+    private FullTextSearch fullTextSearch;
+    private QuizzDocumentCache quizzDocumentCache;
+
+    /**
+     * Read - a quizz with its tags, questions and answers, tagged with its version
+     * @param quizzId the quizz id
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return the quizz, a 304 if the client has the current version, or a 404
+     */
+    @GetMapping("/{quizzId}")
+    public ResponseEntity<Object> getQuizz(@PathVariable Long quizzId,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return quizzDocumentCache.get(quizzId)
+                .map(document -> document(document, ifNoneMatch))
+                .orElseGet(() -> notFound("Quizz not found"));
+    }
+
+    /**
+     * Read - the questions of a quizz with their tags and answers
+     * @param quizzId the quizz id
+     * @return the questions, empty if the quizz has none
+     */
+    @GetMapping("/{quizzId}/questions")
+    public ResponseEntity<List<QuestionView>> getQuestions(@PathVariable Long quizzId) {
+        return ResponseEntity.ok(quizzReadService.findQuestionsOfQuizz(quizzId));
+    }
+
+    /**
+     * Read - a question with its tags and answers
+     * @param questionId the question id
+     * @return the question or a 404
+     */
+    @GetMapping("/questions/{questionId}")
+    public ResponseEntity<Object> getQuestion(@PathVariable Long questionId) {
+        return quizzReadService.findQuestion(questionId)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> notFound("Question not found"));
+    }
+
+    /**
+     * Read - a page of quizzes, by author or by exact tag
+     * @param author the author's username
+     * @param tag the tag
+     * @param cursor the "next" value of the previous page, absent for the first page
+     * @param size the page size, at most 100
+     * @return the page
+     */
+    @GetMapping
+    public ResponseEntity<Object> listQuizzes(@RequestParam(required = false) String author,
+                                              @RequestParam(required = false) String tag,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        if (author != null) {
+            return ResponseEntity.ok(quizzReadService.findQuizzesByAuthor(author, cursor, pageSize(size)));
+        }
+        if (tag != null) {
+            return ResponseEntity.ok(quizzReadService.findQuizzesByTag(tag, cursor, pageSize(size)));
+        }
+        return badRequest("author or tag is required");
+    }
+
+    /**
+     * Read - a page of quizzes having a tag containing a term
+     * @param tag the searched part of a tag
+     * @param cursor the "next" value of the previous page, absent for the first page
+     * @param size the page size, at most 100
+     * @return the page
+     */
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPage<QuizzView>> searchQuizzes(@RequestParam String tag,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(quizzReadService.searchQuizzesByTag(tag, cursor, pageSize(size)));
+    }
+
+    /**
+     * Read - full-text search over the quizz descriptions and commentaries and the question texts
+     * @param q the searched text, in French or English
+     * @param type quizz or question, both if absent
+     * @param size the maximum number of hits, at most 100
+     * @return the hits, most relevant first
+     */
+    @GetMapping("/fulltext")
+    public ResponseEntity<List<SearchHit>> fullTextSearch(@RequestParam String q,
+                                                          @RequestParam(required = false) String type,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(fullTextSearch.search(q, type, pageSize(size)));
+    }
+
+    /**
+     * Read - a page of questions having an exact tag
+     * @param tag the tag
+     * @param cursor the "next" value of the previous page, absent for the first page
+     * @param size the page size, at most 100
+     * @return the page
+     */
+    @GetMapping("/questions")
+    public ResponseEntity<KeysetPage<QuestionView>> listQuestions(@RequestParam String tag,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(quizzReadService.findQuestionsByTag(tag, cursor, pageSize(size)));
+    }
+
+    /**
+     * Read - a page of questions having a tag containing a term
+     * @param tag the searched part of a tag
+     * @param cursor the "next" value of the previous page, absent for the first page
+     * @param size the page size, at most 100
+     * @return the page
+     */
+    @GetMapping("/questions/search")
+    public ResponseEntity<KeysetPage<QuestionView>> searchQuestions(@RequestParam String tag,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(quizzReadService.searchQuestionsByTag(tag, cursor, pageSize(size)));
+    }
+
+    /**
+     * answer 400 to invalid cursors and search queries
+     * @param e the error
+     * @return a http response with the error
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Object> invalidArgument(IllegalArgumentException e) {
+        return badRequest(e.getMessage());
+    }
 
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 
+    private static ResponseEntity<Object> badRequest(String message) {
+        log.warn(message);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(Map.of(ERROR, message));
+    }
 
+    private static ResponseEntity<Object> document(QuizzDocument document, String ifNoneMatch) {
+        // revalidated at each use, a 304 costs no query
+        if (document.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(document.getEtag())
+                    .cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(document.getEtag()).cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON).body(document.getBody());
+    }
 
+    private static ResponseEntity<Object> notFound(String message) {
+        log.warn(message);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(Map.of(ERROR, message));
+    }
 
 }
@@ -0,0 +1,95 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.exceptions.RoomNotFoundException;
+import fr.loual.projectquizz.exceptions.RoomUnavailableException;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.rooms.RoomEmitter;
+import fr.loual.projectquizz.rooms.RoomService;
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/rooms")
+@Slf4j
+public class RoomController {
+
+    private static final String ERROR = "error";
+
+    private RoomService roomService;
+
+    /**
+     * Create - open a live room on a quizz, the authenticated user is its host
+     * @param quizzId the quizz id
+     * @param user the host
+     * @return the room id, or a 404 if the quizz does not exist
+     */
+    @PostMapping("/quizz/{quizzId}")
+    public ResponseEntity<Map<String, String>> open(@PathVariable Long quizzId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return roomService.open(quizzId, user.getUsername())
+                .map(roomId -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("roomId", roomId)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(ERROR, "Quizz not found")));
+    }
+
+    /**
+     * Read - the server-sent events of a room: question, scores and end
+     * @param roomId the room id
+     * @param user the participant
+     * @return the event stream
+     */
+    @GetMapping("/{roomId}/events")
+    public RoomEmitter events(@PathVariable String roomId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return roomService.subscribe(roomId, user.getUsername());
+    }
+
+    /**
+     * Create - answer the current question of a room
+     * @param roomId the room id
+     * @param answer the answer, with the id of the current question
+     * @param user the participant
+     * @return a 202, the answer is graded when the host moves on
+     */
+    @PostMapping("/{roomId}/answers")
+    public ResponseEntity<Void> answer(@PathVariable String roomId, @RequestBody PostedAnswer answer,
+                                       @AuthenticationPrincipal UserDetailsImpl user) {
+        roomService.answer(roomId, user.getUsername(), answer);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Update - grade the current question and push the next one, host only
+     * @param roomId the room id
+     * @param user the host
+     * @return the number of subscribers reached
+     */
+    @PostMapping("/{roomId}/next")
+    public ResponseEntity<Map<String, Integer>> next(@PathVariable String roomId, @AuthenticationPrincipal UserDetailsImpl user) {
+        return ResponseEntity.ok(Map.of("subscribers", roomService.next(roomId, user.getUsername())));
+    }
+
+    @ExceptionHandler(RoomNotFoundException.class)
+    public ResponseEntity<Map<String, String>> roomNotFound(RoomNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(Map.of(ERROR, e.getMessage()));
+    }
+
+    @ExceptionHandler(RoomUnavailableException.class)
+    public ResponseEntity<Map<String, String>> roomUnavailable(RoomUnavailableException e) {
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON).body(Map.of(ERROR, e.getMessage()));
+    }
+
+}
@@ -0,0 +1,37 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.model.dtos.TagSuggestion;
+import fr.loual.projectquizz.search.TagAutocomplete;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/tags")
+@Slf4j
+public class TagController {
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private TagAutocomplete tagAutocomplete;
+
+    /**
+     * Read - type-ahead over the tags, served from memory
+     * @param prefix the typed text
+     * @param limit the maximum number of suggestions, at most 50
+     * @return the tags starting with the prefix, most used first
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<TagSuggestion>> autocomplete(@RequestParam(defaultValue = "") String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tagAutocomplete.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS))));
+    }
+
+}
@@ -0,0 +1,63 @@
+package fr.loual.projectquizz.documents;
+
+/**
+ * A quizz serialized once for a given version, with the strong ETag of that version
+ */
+public final class QuizzDocument {
+
+    private final Long quizzId;
+    private final long version;
+    private final String etag;
+    private final byte[] body;
+
+    QuizzDocument(Long quizzId, long version, byte[] body) {
+        this.quizzId = quizzId;
+        this.version = version;
+        this.etag = "\"" + quizzId + "-" + version + "\"";
+        this.body = body;
+    }
+
+    public Long getQuizzId() {
+        return quizzId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the quoted strong entity tag
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return the JSON body, shared by all the responses and never to be modified
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @param ifNoneMatch the If-None-Match header, possibly absent or a list of tags
+     * @return true if the client already has this version
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            // If-None-Match uses the weak comparison
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,137 @@
+package fr.loual.projectquizz.documents;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.services.QuizzReadService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quizzes as served by the detail read, serialized once per version. A cached quizz is read without
+ * query nor serialization, and a client holding the ETag of the current version gets a 304 from memory.
+ * The writes changing a quizz bump its version and drop its document once committed, a load overlapping
+ * such a drop is not kept, so the cache never holds an older version than the database.
+ */
+@Component
+public class QuizzDocumentCache implements MeterBinder {
+
+    private final QuizzReadService quizzReadService;
+    private final ObjectMapper mapper;
+    private final EntityManager entityManager;
+    private final int maxEntries;
+    private final Map<Long, QuizzDocument> documents = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    public QuizzDocumentCache(QuizzReadService quizzReadService, ObjectMapper mapper, EntityManager entityManager,
+                              @Value("${fr.loual.quizz.maxDocuments:10000}") int maxEntries) {
+        this.quizzReadService = quizzReadService;
+        this.mapper = mapper;
+        this.entityManager = entityManager;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param quizzId the quizz id
+     * @return the current document of the quizz, or empty if it does not exist
+     */
+    public Optional<QuizzDocument> get(Long quizzId) {
+        QuizzDocument document = documents.get(quizzId);
+        if (document != null) {
+            hits.increment();
+            return Optional.of(document);
+        }
+        loads.increment();
+        long generation = evictions.get();
+        Optional<QuizzDocument> loaded = quizzReadService.findQuizz(quizzId).map(this::serialize);
+        loaded.ifPresent(current -> {
+            if (documents.size() >= maxEntries) {
+                trim();
+            }
+            documents.put(quizzId, current);
+            // a write committed during the load, the document may be older than it
+            if (evictions.get() != generation) {
+                documents.remove(quizzId, current);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * bump the version of a quizz whose tags, questions or answers change in the current transaction
+     * @param quizz the managed quizz or a reference to it, ignored if null
+     */
+    public void contentChanged(Quizz quizz) {
+        if (quizz == null) {
+            return;
+        }
+        entityManager.lock(quizz, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        evict(quizz.getId());
+    }
+
+    /**
+     * drop the document of a quizz once the current transaction commits, or now without transaction
+     * @param quizzId the quizz id
+     */
+    public void evict(Long quizzId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            drop(quizzId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                drop(quizzId);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("quizz.documents.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("quizz.documents.loads", loads, LongAdder::sum).register(registry);
+        Gauge.builder("quizz.documents.size", documents, Map::size).register(registry);
+    }
+
+    private void drop(Long quizzId) {
+        evictions.incrementAndGet();
+        documents.remove(quizzId);
+    }
+
+    private QuizzDocument serialize(QuizzView quizz) {
+        try {
+            return new QuizzDocument(quizz.getId(), quizz.getVersion(), mapper.writeValueAsBytes(quizz));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void trim() {
+        // no recency kept on the read path, a tenth of the documents is dropped, the hot ones come back at once
+        Iterator<Long> ids = documents.keySet().iterator();
+        for (int i = 0; i < maxEntries / 10 + 1 && ids.hasNext(); i++) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+}
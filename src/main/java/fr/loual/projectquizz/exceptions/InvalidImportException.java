@@ -0,0 +1,24 @@
+package fr.loual.projectquizz.exceptions;
+
+import fr.loual.projectquizz.model.dtos.ImportReport;
+
+/**
+ * Exception for an import file that can not be read, the chunks read before the error stay committed
+ */
+public class InvalidImportException extends RuntimeException {
+
+    private final transient ImportReport imported;
+
+    public InvalidImportException(String message, ImportReport imported) {
+        super(message);
+        this.imported = imported;
+    }
+
+    /**
+     * @return what was committed before the error
+     */
+    public ImportReport getImported() {
+        return imported;
+    }
+
+}
@@ -0,0 +1,12 @@
+package fr.loual.projectquizz.exceptions;
+
+/**
+ * Exception for a play session unknown, expired or belonging to another user
+ */
+public class PlaySessionNotFoundException extends RuntimeException {
+
+    public PlaySessionNotFoundException(String sessionId) {
+        super(String.format("Play session not found : '%s'", sessionId));
+    }
+
+}
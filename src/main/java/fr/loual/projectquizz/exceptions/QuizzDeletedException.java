@@ -0,0 +1,12 @@
+package fr.loual.projectquizz.exceptions;
+
+/**
+ * Exception for a play session whose quizz has been deleted while it was played
+ */
+public class QuizzDeletedException extends RuntimeException {
+
+    public QuizzDeletedException(Long quizzId) {
+        super(String.format("Quizz deleted : '%s'", quizzId));
+    }
+
+}
@@ -0,0 +1,12 @@
+package fr.loual.projectquizz.exceptions;
+
+/**
+ * Exception for a live room unknown or already ended
+ */
+public class RoomNotFoundException extends RuntimeException {
+
+    public RoomNotFoundException(String roomId) {
+        super(String.format("Room not found : '%s'", roomId));
+    }
+
+}
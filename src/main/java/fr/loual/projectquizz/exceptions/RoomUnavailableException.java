@@ -0,0 +1,12 @@
+package fr.loual.projectquizz.exceptions;
+
+/**
+ * Exception for a live room refusing a new room, subscriber or answer because a limit is reached
+ */
+public class RoomUnavailableException extends RuntimeException {
+
+    public RoomUnavailableException(String message) {
+        super(message);
+    }
+
+}
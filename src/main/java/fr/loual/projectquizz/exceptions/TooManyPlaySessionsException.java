@@ -0,0 +1,12 @@
+package fr.loual.projectquizz.exceptions;
+
+/**
+ * Exception for a new play session refused because the session store is full
+ */
+public class TooManyPlaySessionsException extends RuntimeException {
+
+    public TooManyPlaySessionsException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,256 @@
+package fr.loual.projectquizz.exporting;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.model.dtos.AnswerView;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.dtos.TagLink;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Export of every quizz, question and answer as newline-delimited JSON, in the format read back by the import.
+ * Five forward-only projection streams, sorted the same way, are merged while writing: the quizzes and their
+ * tags by quizz id, the questions, their tags and their answers by quizz then question. Rows go from the
+ * cursors to the response through the JSON generator, only the current question being held, and the
+ * projections never enter the persistence context, so the heap used does not grow with the bank.
+ * The last line sums up the export, a file without it is truncated. Answers are written inside their question,
+ * the ones without question can not be and are counted as skipped in that line.
+ */
+@Slf4j
+@Component
+public class QuizzExporter implements MeterBinder {
+
+    private final QuizzRepository quizzRepository;
+    private final QuestionRepository questionRepository;
+    private final AnswerRepository answerRepository;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long timeoutMillis;
+    private final LongAdder exportedRows = new LongAdder();
+
+    public QuizzExporter(QuizzRepository quizzRepository, QuestionRepository questionRepository,
+                         AnswerRepository answerRepository, ObjectMapper mapper, PlatformTransactionManager transactionManager,
+                         @Value("${fr.loual.export.maxConcurrent:2}") int maxConcurrent,
+                         @Value("${fr.loual.export.timeoutMinutes:30}") long timeoutMinutes) {
+        this.quizzRepository = quizzRepository;
+        this.questionRepository = questionRepository;
+        this.answerRepository = answerRepository;
+        this.mapper = mapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // one snapshot for the five queries, so that the streams agree with each other
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    /**
+     * @return the time an export may take, longer than the one of the other asynchronous requests
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * reserve an export, written later to the response by the returned body
+     * @return the response body, or empty if too many exports are running
+     */
+    public Optional<StreamingResponseBody> open() {
+        if (!permits.tryAcquire()) {
+            return Optional.empty();
+        }
+        return Optional.of(output -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(output));
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("export.rows", exportedRows, LongAdder::sum).register(registry);
+        Gauge.builder("export.active", permits, semaphore -> maxConcurrent - semaphore.availablePermits()).register(registry);
+    }
+
+    private void write(OutputStream output) {
+        long start = System.nanoTime();
+        try (Stream<QuizzView> quizzStream = quizzRepository.streamAllViews();
+             Stream<TagLink> quizzTagStream = quizzRepository.streamAllTagLinks();
+             Stream<QuestionView> questionStream = questionRepository.streamAllViews();
+             Stream<TagLink> questionTagStream = questionRepository.streamAllTagLinks();
+             Stream<AnswerView> answerStream = answerRepository.streamAllViews();
+             JsonGenerator generator = mapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            // one object per line, the servlet stream being left to the container
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Cursor<QuizzView> quizzes = new Cursor<>(quizzStream.iterator());
+            Cursor<TagLink> quizzTags = new Cursor<>(quizzTagStream.iterator());
+            Cursor<TagLink> questionTags = new Cursor<>(questionTagStream.iterator());
+            Cursor<AnswerView> answers = new Cursor<>(answerStream.iterator());
+            long quizzCount = 0;
+            long questionCount = 0;
+            long answerCount = 0;
+            long reported = 0;
+            Iterator<QuestionView> questions = questionStream.iterator();
+            while (questions.hasNext()) {
+                QuestionView question = questions.next();
+                long quizzKey = question.getQuizzId() == null ? 0L : question.getQuizzId();
+                // a quizz comes before its questions
+                while (quizzes.hasNext() && quizzes.peek().getId() <= quizzKey) {
+                    writeQuizz(generator, quizzes.next(), quizzTags);
+                    quizzCount++;
+                }
+                answerCount += writeQuestion(generator, question, questionTags, answers);
+                questionCount++;
+                if ((questionCount & 0x3FF) == 0) {
+                    long rows = quizzCount + questionCount + answerCount;
+                    exportedRows.add(rows - reported);
+                    reported = rows;
+                }
+            }
+            while (quizzes.hasNext()) {
+                writeQuizz(generator, quizzes.next(), quizzTags);
+                quizzCount++;
+            }
+            long rows = quizzCount + questionCount + answerCount;
+            exportedRows.add(rows - reported);
+            long skippedAnswers = answerRepository.countByQuestionIsNull();
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long rowsPerSecond = millis == 0 ? rows : rows * 1000 / millis;
+            generator.writeStartObject();
+            generator.writeStringField("type", "end");
+            generator.writeNumberField("quizzes", quizzCount);
+            generator.writeNumberField("questions", questionCount);
+            generator.writeNumberField("answers", answerCount);
+            generator.writeNumberField("skippedAnswers", skippedAnswers);
+            generator.writeNumberField("millis", millis);
+            generator.writeNumberField("rowsPerSecond", rowsPerSecond);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            log.info("exported {} quizzes, {} questions and {} answers in {} ms, {} rows/s, {} answers without question skipped",
+                    quizzCount, questionCount, answerCount, millis, rowsPerSecond, skippedAnswers);
+        } catch (IOException e) {
+            // mostly the client going away, the transaction is rolled back and the cursors closed
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeQuizz(JsonGenerator generator, QuizzView quizz, Cursor<TagLink> tags) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "quizz");
+        generator.writeNumberField("id", quizz.getId());
+        generator.writeStringField("description", quizz.getDescription());
+        generator.writeStringField("commentary", quizz.getCommentary());
+        generator.writeStringField("author", quizz.getAuthor());
+        writeTags(generator, quizz.getId(), tags);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static int writeQuestion(JsonGenerator generator, QuestionView question, Cursor<TagLink> tags,
+                                     Cursor<AnswerView> answers) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "question");
+        generator.writeNumberField("id", question.getId());
+        if (question.getQuizzId() != null) {
+            generator.writeNumberField("quizzId", question.getQuizzId());
+        }
+        generator.writeStringField("quizzQuestion", question.getQuizzQuestion());
+        writeBoolean(generator, "choiceType", question.getChoiceType());
+        writeBoolean(generator, "freeResponse", question.getFreeResponse());
+        writeTags(generator, question.getId(), tags);
+        generator.writeArrayFieldStart("answer");
+        int count = 0;
+        while (answers.hasNext() && question.getId().equals(answers.peek().getQuestionId())) {
+            AnswerView answer = answers.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", answer.getId());
+            generator.writeStringField("answer", answer.getQuizzAnswer());
+            writeBoolean(generator, "correct", answer.getCorrect());
+            generator.writeEndObject();
+            count++;
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        return count;
+    }
+
+    private static void writeTags(JsonGenerator generator, Long ownerId, Cursor<TagLink> tags) throws IOException {
+        generator.writeArrayFieldStart("tags");
+        while (tags.hasNext() && ownerId.equals(tags.peek().getOwnerId())) {
+            generator.writeString(tags.next().getTag());
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeBoolean(JsonGenerator generator, String name, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeBooleanField(name, value);
+        }
+    }
+
+    /**
+     * iterator able to look at its next element without consuming it
+     */
+    private static final class Cursor<T> {
+
+        private final Iterator<T> iterator;
+        private T next;
+
+        private Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        private boolean hasNext() {
+            return next != null || iterator.hasNext();
+        }
+
+        private T peek() {
+            if (next == null) {
+                next = iterator.next();
+            }
+            return next;
+        }
+
+        private T next() {
+            T value = peek();
+            next = null;
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+
+/**
+ * The correct answers of a question, compiled once into a form cheap to test against
+ */
+public interface AnswerMatcher {
+
+    /**
+     * @param answer the posted answer
+     * @return true if the answer is right
+     */
+    boolean matches(PostedAnswer answer);
+
+}
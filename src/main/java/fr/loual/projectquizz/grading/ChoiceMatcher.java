@@ -0,0 +1,52 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matcher of a choice question. The option ids are sorted once, an answer is turned into a bitset of
+ * option positions and compared with the bitset of the correct options: the answer is right when
+ * exactly the correct options are chosen.
+ */
+final class ChoiceMatcher implements AnswerMatcher {
+
+    private final long[] optionIds;
+    private final BitSet correct;
+
+    /**
+     * @param optionIds the ids of all the options of the question
+     * @param correctIds the ids of the correct options
+     */
+    ChoiceMatcher(long[] optionIds, long[] correctIds) {
+        this.optionIds = optionIds.clone();
+        Arrays.sort(this.optionIds);
+        this.correct = new BitSet(this.optionIds.length);
+        for (long id : correctIds) {
+            int position = Arrays.binarySearch(this.optionIds, id);
+            if (position >= 0) {
+                correct.set(position);
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(PostedAnswer answer) {
+        List<Long> chosenIds = answer.getAnswerIds();
+        if (chosenIds == null || chosenIds.isEmpty() || correct.isEmpty()) {
+            return false;
+        }
+        BitSet chosen = new BitSet(optionIds.length);
+        for (Long id : chosenIds) {
+            int position = id == null ? -1 : Arrays.binarySearch(optionIds, id);
+            if (position < 0) {
+                return false;
+            }
+            chosen.set(position);
+        }
+        return chosen.equals(correct);
+    }
+
+}
@@ -0,0 +1,58 @@
+package fr.loual.projectquizz.grading;
+
+/**
+ * Levenshtein distance bounded by a maximum: only the diagonal band of width 2 * max + 1 is computed and
+ * the computation stops as soon as the whole band exceeds the maximum, so a far answer costs little.
+ */
+final class EditDistance {
+
+    private EditDistance() {
+    }
+
+    /**
+     * @param a a string
+     * @param b another string
+     * @param max the maximum distance
+     * @return true if the distance between the strings is at most max
+     */
+    static boolean within(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return false;
+        }
+        int outside = max + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= max ? j : outside;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            current[0] = i <= max ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int best = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                current[j] = Math.min(value, outside);
+                best = Math.min(best, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (best > max) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= max;
+    }
+
+}
@@ -0,0 +1,48 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Matcher of a free response question. The accepted answers are normalized once, an answer is normalized
+ * the same way and looked up, then compared with a bounded edit distance when a tolerance is allowed.
+ */
+final class FreeResponseMatcher implements AnswerMatcher {
+
+    private final Set<String> accepted;
+    private final String[] tolerant;
+    private final int maxDistance;
+
+    /**
+     * @param accepted the accepted answers, normalized
+     * @param maxDistance the edit distance tolerated, 0 for an exact match
+     * @param minToleratedLength the length an accepted answer needs for the tolerance to apply
+     */
+    FreeResponseMatcher(Set<String> accepted, int maxDistance, int minToleratedLength) {
+        this.accepted = new HashSet<>(accepted);
+        this.maxDistance = maxDistance;
+        this.tolerant = maxDistance == 0 ? new String[0] : accepted.stream()
+                .filter(value -> value.length() >= minToleratedLength)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public boolean matches(PostedAnswer answer) {
+        if (answer.getAnswer() == null) {
+            return false;
+        }
+        String given = TextNormalizer.normalize(answer.getAnswer());
+        if (accepted.contains(given)) {
+            return true;
+        }
+        for (String value : tolerant) {
+            if (EditDistance.within(value, given, maxDistance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,34 @@
+package fr.loual.projectquizz.grading;
+
+/**
+ * Grade of a submission, one point per right answer
+ */
+public final class Grade {
+
+    private final int score;
+    private final int maxScore;
+    private final boolean[] correct;
+
+    Grade(int score, int maxScore, boolean[] correct) {
+        this.score = score;
+        this.maxScore = maxScore;
+        this.correct = correct;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * @param position the position of a question in the quizz
+     * @return true if the question was answered right
+     */
+    public boolean isCorrect(int position) {
+        return correct[position];
+    }
+
+}
@@ -0,0 +1,76 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.play.QuizzSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles the answers of the questions into matchers and grades the submissions against them.
+ * Grading only reads the compiled matchers, it never touches the database.
+ */
+@Component
+public class GradingEngine {
+
+    private final int maxEditDistance;
+    private final int minToleratedLength;
+
+    public GradingEngine(@Value("${fr.loual.grading.maxEditDistance:1}") int maxEditDistance,
+                         @Value("${fr.loual.grading.minToleratedLength:5}") int minToleratedLength) {
+        this.maxEditDistance = maxEditDistance;
+        this.minToleratedLength = minToleratedLength;
+    }
+
+    /**
+     * compile the answers of a question. A choice question is graded on the ids of the correct options,
+     * a free response on the texts of the correct answers, or of all its answers when none is flagged
+     * @param question the question and its answers
+     * @return the matcher of the question
+     */
+    public AnswerMatcher compile(QuizzSnapshot.QuestionSnapshot question) {
+        List<QuizzSnapshot.Option> options = question.getOptions();
+        if (question.isChoiceType()) {
+            long[] optionIds = options.stream().mapToLong(QuizzSnapshot.Option::getId).toArray();
+            long[] correctIds = options.stream().filter(QuizzSnapshot.Option::isCorrect)
+                    .mapToLong(QuizzSnapshot.Option::getId).toArray();
+            return new ChoiceMatcher(optionIds, correctIds);
+        }
+        boolean anyFlagged = options.stream().anyMatch(QuizzSnapshot.Option::isCorrect);
+        Set<String> accepted = new HashSet<>();
+        for (QuizzSnapshot.Option option : options) {
+            if (option.getText() != null && (!anyFlagged || option.isCorrect())) {
+                accepted.add(TextNormalizer.normalize(option.getText()));
+            }
+        }
+        return new FreeResponseMatcher(accepted, maxEditDistance, minToleratedLength);
+    }
+
+    /**
+     * grade a whole submission, each question counts once, at its first answer
+     * @param quizz the quizz
+     * @param answers the answers, in any order, answers to unknown questions are ignored
+     * @return the grade
+     */
+    public Grade grade(QuizzSnapshot quizz, List<PostedAnswer> answers) {
+        boolean[] graded = new boolean[quizz.size()];
+        boolean[] correct = new boolean[quizz.size()];
+        int score = 0;
+        for (PostedAnswer answer : answers) {
+            int position = quizz.positionOf(answer.getQuestionId());
+            if (position < 0 || graded[position]) {
+                continue;
+            }
+            graded[position] = true;
+            if (quizz.matcher(position).matches(answer)) {
+                correct[position] = true;
+                score++;
+            }
+        }
+        return new Grade(score, quizz.size(), correct);
+    }
+
+}
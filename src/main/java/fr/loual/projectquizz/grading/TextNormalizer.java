@@ -0,0 +1,45 @@
+package fr.loual.projectquizz.grading;
+
+import java.text.Normalizer;
+
+/**
+ * Folds the free responses before their comparison: accents removed, lower case, spaces trimmed
+ * and collapsed. Pure ascii text, the common case, never goes through the unicode decomposition.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * @param text the text
+     * @return the folded text
+     */
+    public static String normalize(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return fold(Normalizer.normalize(text, Normalizer.Form.NFD));
+            }
+        }
+        return fold(text);
+    }
+
+    private static String fold(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = folded.length() > 0;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                if (pendingSpace) {
+                    folded.append(' ');
+                    pendingSpace = false;
+                }
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+}
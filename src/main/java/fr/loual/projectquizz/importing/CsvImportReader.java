@@ -0,0 +1,204 @@
+package fr.loual.projectquizz.importing;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Streaming reader of a CSV import, one row per answer, comma or semicolon separated, with a header naming the
+ * columns: quizz, commentary, quizzTags, question, questionTags, choiceType, freeResponse, answer, correct.
+ * Consecutive rows with the same quizz and commentary make one quizz, consecutive rows of a quizz with the same
+ * question make one question. Tags are separated by '|', fields may be quoted as in RFC 4180.
+ */
+final class CsvImportReader {
+
+    private static final String[] COLUMNS = {"quizz", "commentary", "quizztags", "question", "questiontags",
+            "choicetype", "freeresponse", "answer", "correct"};
+    private static final int QUIZZ = 0;
+    private static final int COMMENTARY = 1;
+    private static final int QUIZZ_TAGS = 2;
+    private static final int QUESTION = 3;
+    private static final int QUESTION_TAGS = 4;
+    private static final int CHOICE_TYPE = 5;
+    private static final int FREE_RESPONSE = 6;
+    private static final int ANSWER = 7;
+    private static final int CORRECT = 8;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private int line = 1;
+    private char separator;
+
+    CsvImportReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * read a whole file
+     * @param handler receives the quizzes and questions
+     * @throws IOException if the content can not be read or is not an import
+     */
+    void read(ImportHandler handler) throws IOException {
+        int[] columns = header();
+        String quizzKey = null;
+        String quizzCommentary = null;
+        PostedQuestion question = null;
+        List<String> record;
+        while ((record = nextRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            String[] row = new String[COLUMNS.length];
+            for (int i = 0; i < COLUMNS.length; i++) {
+                row[i] = columns[i] < 0 || columns[i] >= record.size() ? "" : record.get(columns[i]).trim();
+            }
+            boolean newQuizz = quizzKey == null || !quizzKey.equals(row[QUIZZ]) || !quizzCommentary.equals(row[COMMENTARY]);
+            if (newQuizz || !Objects.equals(question.getQuizzQuestion(), row[QUESTION])) {
+                if (question != null) {
+                    handler.question(question);
+                }
+                if (newQuizz) {
+                    quizzKey = row[QUIZZ];
+                    quizzCommentary = row[COMMENTARY];
+                    handler.quizz(new PostedQuizz().setDescription(quizzKey).setCommentary(quizzCommentary)
+                            .setTags(tags(row[QUIZZ_TAGS])));
+                }
+                question = new PostedQuestion().setQuizzQuestion(row[QUESTION]).setTags(tags(row[QUESTION_TAGS]))
+                        .setChoiceType(bool(row[CHOICE_TYPE])).setFreeResponse(bool(row[FREE_RESPONSE]))
+                        .setAnswer(new ArrayList<>(4));
+            }
+            if (!row[ANSWER].isEmpty()) {
+                question.getAnswer().add(new PostedAnswer().setAnswer(row[ANSWER]).setCorrect(bool(row[CORRECT])));
+            }
+        }
+        if (question != null) {
+            handler.question(question);
+        }
+    }
+
+    /**
+     * read the header, guessing the separator from it
+     * @return the index of each known column in the rows, -1 if absent
+     */
+    private int[] header() throws IOException {
+        // byte order mark of the UTF-8 exports of spreadsheets
+        if (fill() && buffer[position] == '\uFEFF') {
+            position++;
+        }
+        int comma = 0;
+        int semicolon = 0;
+        for (int i = position; i < limit && buffer[i] != '\n'; i++) {
+            if (buffer[i] == ',') {
+                comma++;
+            } else if (buffer[i] == ';') {
+                semicolon++;
+            }
+        }
+        separator = semicolon > comma ? ';' : ',';
+        List<String> names = nextRecord();
+        if (names == null) {
+            throw new IOException("the CSV content is empty, a header is expected");
+        }
+        int[] columns = new int[COLUMNS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < names.size(); i++) {
+            int column = Arrays.asList(COLUMNS).indexOf(names.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column >= 0) {
+                columns[column] = i;
+            }
+        }
+        if (columns[QUESTION] < 0) {
+            throw new IOException("the CSV header has no question column");
+        }
+        return columns;
+    }
+
+    /**
+     * read the fields of the next record
+     * @return the fields, or null at the end of the content
+     */
+    private List<String> nextRecord() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        int start = line;
+        boolean quoted = false;
+        field.setLength(0);
+        while (fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("line " + start + ": unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        return limit > 0;
+    }
+
+    private static List<String> tags(String value) {
+        if (value.isEmpty()) {
+            return List.of();
+        }
+        List<String> tags = new ArrayList<>(4);
+        for (String tag : value.split("\\|")) {
+            if (!tag.isBlank()) {
+                tags.add(tag.trim());
+            }
+        }
+        return tags;
+    }
+
+    private static Boolean bool(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
+    }
+
+}
@@ -0,0 +1,15 @@
+package fr.loual.projectquizz.importing;
+
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+
+/**
+ * Receives the records of an import file in their order, a question belonging to the last quizz received
+ */
+interface ImportHandler {
+
+    void quizz(PostedQuizz quizz);
+
+    void question(PostedQuestion question);
+
+}
@@ -0,0 +1,131 @@
+package fr.loual.projectquizz.importing;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Streaming reader of a JSON import, an array of quizzes each with its questions and their answers:
+ * <pre>[{"description": "...", "commentary": "...", "tags": ["..."],
+ *   "questions": [{"quizzQuestion": "...", "choiceType": true, "freeResponse": false, "tags": ["..."],
+ *                  "answer": [{"answer": "...", "correct": true}]}]}]</pre>
+ * Only one question is held in memory at a time, so the fields of a quizz must come before its questions.
+ * Newline-delimited exports are read too, a question line belonging to the quizz line before it.
+ */
+final class JsonImportReader {
+
+    private static final String QUESTIONS = "questions";
+
+    private final ObjectMapper mapper;
+    private final ObjectReader quizzReader;
+    private final ObjectReader questionReader;
+    private final ObjectReader tagsReader;
+
+    JsonImportReader(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.quizzReader = mapper.readerFor(PostedQuizz.class);
+        this.questionReader = mapper.readerFor(PostedQuestion.class);
+        this.tagsReader = mapper.readerForListOf(String.class);
+    }
+
+    /**
+     * read a whole file
+     * @param input the JSON content
+     * @param handler receives the quizzes and questions
+     * @throws IOException if the content can not be read or is not an import
+     */
+    void read(InputStream input, ImportHandler handler) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(input)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                readQuizz(parser, handler);
+            }
+            expect(parser, token, JsonToken.END_ARRAY);
+        }
+    }
+
+    /**
+     * read newline-delimited records, as written by the export: quizz and question lines, the others being skipped
+     * @param input the content, one JSON object per line
+     * @param handler receives the quizzes and questions
+     * @throws IOException if the content can not be read
+     */
+    void readLines(InputStream input, ImportHandler handler) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(input)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                expect(parser, token, JsonToken.START_OBJECT);
+                ObjectNode record = parser.readValueAsTree();
+                String type = record.path("type").asText();
+                if ("quizz".equals(type)) {
+                    handler.quizz(quizzReader.readValue(record));
+                } else if ("question".equals(type)) {
+                    handler.question(questionReader.readValue(record));
+                }
+            }
+        }
+    }
+
+    private void readQuizz(JsonParser parser, ImportHandler handler) throws IOException {
+        PostedQuizz quizz = new PostedQuizz();
+        boolean started = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (QUESTIONS.equals(field)) {
+                if (!started) {
+                    handler.quizz(quizz);
+                    started = true;
+                }
+                readQuestions(parser, value, handler);
+            } else if (started && isQuizzField(field)) {
+                throw new JsonParseException(parser, "the fields of a quizz must come before its questions");
+            } else if ("description".equals(field)) {
+                quizz.setDescription(parser.getValueAsString());
+            } else if ("commentary".equals(field)) {
+                quizz.setCommentary(parser.getValueAsString());
+            } else if ("tags".equals(field)) {
+                quizz.setTags(value == JsonToken.VALUE_NULL ? null : tagsReader.<List<String>>readValue(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!started) {
+            handler.quizz(quizz);
+        }
+    }
+
+    private void readQuestions(JsonParser parser, JsonToken value, ImportHandler handler) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, value, JsonToken.START_ARRAY);
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            handler.question(questionReader.readValue(parser));
+        }
+        expect(parser, token, JsonToken.END_ARRAY);
+    }
+
+    private static boolean isQuizzField(String field) {
+        return "description".equals(field) || "commentary".equals(field) || "tags".equals(field);
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "expected " + expected + " but found "
+                    + (token == null ? "the end of the content" : token));
+        }
+    }
+
+}
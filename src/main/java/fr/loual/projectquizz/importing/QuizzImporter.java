@@ -0,0 +1,296 @@
+package fr.loual.projectquizz.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.documents.QuizzDocumentCache;
+import fr.loual.projectquizz.exceptions.InvalidImportException;
+import fr.loual.projectquizz.mapping.TagResolver;
+import fr.loual.projectquizz.model.dtos.ImportReport;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
+import fr.loual.projectquizz.search.FullTextSearch;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulk import of quizzes, questions and answers read from a stream. Records are buffered until a chunk is
+ * full, each chunk being inserted in its own transaction: the tags of the chunk are resolved at once by the
+ * {@link TagResolver}, the entities take their ids from the pooled sequences so Hibernate sends the inserts in JDBC batches,
+ * then the persistence context is cleared, as the one of the web request would otherwise keep every entity
+ * of the import and check them all at each flush. A failing chunk is rolled back alone.
+ */
+@Slf4j
+@Component
+public class QuizzImporter implements MeterBinder {
+
+    private final EntityManager entityManager;
+    private final TagResolver tagResolver;
+    private final FullTextSearch fullTextSearch;
+    private final QuizzDocumentCache quizzDocumentCache;
+    private final QuizzSnapshotCache quizzSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonImportReader jsonReader;
+    private final int chunkSize;
+    private final LongAdder importedRows = new LongAdder();
+
+    public QuizzImporter(EntityManager entityManager, TagResolver tagResolver, FullTextSearch fullTextSearch,
+                         QuizzDocumentCache quizzDocumentCache, QuizzSnapshotCache quizzSnapshotCache,
+                         PlatformTransactionManager transactionManager, ObjectMapper mapper,
+                         @Value("${fr.loual.import.chunkSize:5000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.tagResolver = tagResolver;
+        this.fullTextSearch = fullTextSearch;
+        this.quizzDocumentCache = quizzDocumentCache;
+        this.quizzSnapshotCache = quizzSnapshotCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jsonReader = new JsonImportReader(mapper);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * import a JSON array of quizzes with their questions and answers
+     * @param input the JSON content
+     * @param userId the id of the user owning the imported quizzes and questions
+     * @return the counts and throughput
+     * @throws InvalidImportException if the content can not be read, with what was committed before
+     */
+    public ImportReport importJson(InputStream input, Long userId) {
+        return importWith(userId, handler -> jsonReader.read(input, handler));
+    }
+
+    /**
+     * import newline-delimited quizz and question records, as written by the export
+     * @param input the content, one JSON object per line
+     * @param userId the id of the user owning the imported quizzes and questions
+     * @return the counts and throughput
+     * @throws InvalidImportException if the content can not be read, with what was committed before
+     */
+    public ImportReport importJsonLines(InputStream input, Long userId) {
+        return importWith(userId, handler -> jsonReader.readLines(input, handler));
+    }
+
+    /**
+     * import CSV rows of answers, grouped by question and quizz
+     * @param input the CSV content, UTF-8 encoded
+     * @param userId the id of the user owning the imported quizzes and questions
+     * @return the counts and throughput
+     * @throws InvalidImportException if the content can not be read, with what was committed before
+     */
+    public ImportReport importCsv(InputStream input, Long userId) {
+        return importWith(userId, handler ->
+                new CsvImportReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))).read(handler));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("import.rows", importedRows, LongAdder::sum).register(registry);
+    }
+
+    private ImportReport importWith(Long userId, Source source) {
+        Run run = new Run(userId);
+        try {
+            source.read(run);
+        } catch (JsonProcessingException e) {
+            throw run.failed(e.getOriginalMessage() + " at line " + e.getLocation().getLineNr()
+                    + ", column " + e.getLocation().getColumnNr());
+        } catch (IOException e) {
+            throw run.failed(e.getMessage());
+        }
+        return run.finish();
+    }
+
+    /**
+     * a file read by one of the readers
+     */
+    @FunctionalInterface
+    private interface Source {
+
+        void read(ImportHandler handler) throws IOException;
+    }
+
+    /**
+     * a quizz of the current chunk, without header when it continues the quizz of the previous chunk
+     */
+    private static final class Part {
+
+        private final PostedQuizz header;
+        private final List<PostedQuestion> questions = new ArrayList<>();
+
+        private Part(PostedQuizz header) {
+            this.header = header;
+        }
+    }
+
+    /**
+     * state of one import, chunks are written from the reading thread
+     */
+    private final class Run implements ImportHandler {
+
+        private final Long userId;
+        private final long start = System.nanoTime();
+        private List<Part> parts = new ArrayList<>();
+        private int pendingRows;
+        private Long currentQuizzId;
+        private long quizzes;
+        private long questions;
+        private long answers;
+        private long tags;
+        private int chunks;
+
+        private Run(Long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void quizz(PostedQuizz quizz) {
+            parts.add(new Part(quizz));
+            pendingRows++;
+        }
+
+        @Override
+        public void question(PostedQuestion question) {
+            if (parts.isEmpty()) {
+                parts.add(new Part(null));
+            }
+            parts.get(parts.size() - 1).questions.add(question);
+            pendingRows += 1 + (question.getAnswer() == null ? 0 : question.getAnswer().size());
+            if (pendingRows >= chunkSize) {
+                flush();
+            }
+        }
+
+        private ImportReport finish() {
+            flush();
+            ImportReport report = report();
+            log.info("imported {} quizzes, {} questions, {} answers and {} new tags in {} chunks, {} ms, {} rows/s",
+                    quizzes, questions, answers, tags, chunks, report.getMillis(), report.getRowsPerSecond());
+            return report;
+        }
+
+        private InvalidImportException failed(String message) {
+            ImportReport report = report();
+            log.warn("import stopped after {} committed chunks : {}", chunks, message);
+            return new InvalidImportException(message, report);
+        }
+
+        private ImportReport report() {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long rows = quizzes + questions + answers;
+            return new ImportReport(quizzes, questions, answers, tags, chunks, millis,
+                    millis == 0 ? rows : rows * 1000 / millis);
+        }
+
+        private void flush() {
+            if (parts.isEmpty()) {
+                return;
+            }
+            List<Part> chunk = parts;
+            parts = new ArrayList<>();
+            pendingRows = 0;
+            long[] counts = transactionTemplate.execute(status -> write(chunk));
+            quizzes += counts[0];
+            questions += counts[1];
+            answers += counts[2];
+            tags += counts[3];
+            chunks++;
+            importedRows.add(counts[0] + counts[1] + counts[2]);
+        }
+
+        /**
+         * insert a chunk in the current transaction
+         * @return the number of quizzes, questions, answers and tags inserted
+         */
+        private long[] write(List<Part> chunk) {
+            long[] counts = new long[4];
+            Map<String, Tags> tagsByName = tagResolver.resolve(names(chunk), created -> counts[3] += created);
+            AppUser user = entityManager.getReference(AppUser.class, userId);
+            List<Quizz> savedQuizzes = new ArrayList<>();
+            List<Question> savedQuestions = new ArrayList<>(chunkSize);
+            Long quizzId = currentQuizzId;
+            for (Part part : chunk) {
+                Quizz quizz;
+                if (part.header != null) {
+                    quizz = new Quizz().setDescription(part.header.getDescription())
+                            .setCommentary(part.header.getCommentary())
+                            .setTags(TagResolver.tagsOf(part.header.getTags(), tagsByName))
+                            .setUser(user);
+                    entityManager.persist(quizz);
+                    savedQuizzes.add(quizz);
+                    quizzId = quizz.getId();
+                } else {
+                    quizz = quizzId == null ? null : entityManager.getReference(Quizz.class, quizzId);
+                    // the quizz of the previous chunk may already be served, or played
+                    quizzDocumentCache.contentChanged(quizz);
+                    if (quizzId != null) {
+                        quizzSnapshotCache.evict(quizzId);
+                    }
+                }
+                for (PostedQuestion posted : part.questions) {
+                    Question question = new Question().setQuizzQuestion(posted.getQuizzQuestion())
+                            .setChoiceType(posted.getChoiceType())
+                            .setFreeResponse(posted.getFreeResponse())
+                            .setTags(TagResolver.tagsOf(posted.getTags(), tagsByName))
+                            .setUser(user)
+                            .setQuizz(quizz);
+                    entityManager.persist(question);
+                    savedQuestions.add(question);
+                    if (posted.getAnswer() != null) {
+                        for (PostedAnswer answer : posted.getAnswer()) {
+                            entityManager.persist(new Answer().setQuizzAnswer(answer.getAnswer())
+                                    .setCorrect(answer.getCorrect()).setQuestion(question));
+                            counts[2]++;
+                        }
+                    }
+                }
+            }
+            fullTextSearch.indexAll(savedQuizzes, savedQuestions);
+            entityManager.flush();
+            entityManager.clear();
+            currentQuizzId = quizzId;
+            counts[0] = savedQuizzes.size();
+            counts[1] = savedQuestions.size();
+            return counts;
+        }
+
+        private List<String> names(List<Part> chunk) {
+            List<String> names = new ArrayList<>();
+            for (Part part : chunk) {
+                if (part.header != null && part.header.getTags() != null) {
+                    names.addAll(part.header.getTags());
+                }
+                for (PostedQuestion question : part.questions) {
+                    if (question.getTags() != null) {
+                        names.addAll(question.getTags());
+                    }
+                }
+            }
+            return names;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package fr.loual.projectquizz.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ranking of the players of a quizz or of a tag, held in memory.
+ * The score of each player is kept in a map and counted in a Fenwick tree for the rank queries, the best
+ * players are kept in a skip list bounded to the top K. Scores only grow, so a player pushed out of the
+ * top K can only come back by improving, and a bounded top K is never missing anyone.
+ */
+public final class Leaderboard {
+
+    /** best score first, then the earliest to reach it */
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::getScore).reversed()
+            .thenComparingLong(Entry::getAchievedAt)
+            .thenComparingLong(Entry::getUserId);
+
+    private final int topSize;
+    private final ConcurrentHashMap<Long, Entry> scores = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> top = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicInteger topCount = new AtomicInteger();
+    private final ScoreCounts counts;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * @param topSize the number of players kept in the top
+     * @param expectedMaxScore the expected highest score, sizing the rank counters
+     */
+    public Leaderboard(int topSize, int expectedMaxScore) {
+        this.topSize = topSize;
+        this.counts = new ScoreCounts(expectedMaxScore + 1);
+    }
+
+    /**
+     * keep a new score of a player if it is their best one
+     * @param userId the player id
+     * @param username the player name
+     * @param score the score
+     * @param achievedAt the time of the score in milliseconds
+     * @return the improvement of the best score of the player, 0 if the score is not better
+     */
+    public int offer(long userId, String username, int score, long achievedAt) {
+        int[] improvement = new int[1];
+        scores.compute(userId, (id, current) -> {
+            if (current != null && current.score >= score) {
+                return current;
+            }
+            Entry entry = new Entry(userId, username, score, achievedAt);
+            improvement[0] = score - (current == null ? 0 : current.score);
+            replace(current, entry);
+            return entry;
+        });
+        return improvement[0];
+    }
+
+    /**
+     * add points to the score of a player
+     * @param userId the player id
+     * @param username the player name
+     * @param points the points to add
+     * @param achievedAt the time of the change in milliseconds
+     */
+    public void add(long userId, String username, int points, long achievedAt) {
+        scores.compute(userId, (id, current) -> {
+            Entry entry = new Entry(userId, username, (current == null ? 0 : current.score) + points, achievedAt);
+            replace(current, entry);
+            return entry;
+        });
+    }
+
+    /**
+     * @param limit the number of players, at most the top size
+     * @return the best players, with the rank of each one
+     */
+    public List<Ranked> top(int limit) {
+        List<Ranked> ranked = new ArrayList<>(Math.min(limit, topSize));
+        int rank = 0;
+        int previousScore = -1;
+        int position = 0;
+        for (Entry entry : top) {
+            if (position == limit) {
+                break;
+            }
+            position++;
+            // players with the same score share the same rank
+            if (entry.score != previousScore) {
+                rank = position;
+                previousScore = entry.score;
+            }
+            ranked.add(new Ranked(rank, entry));
+        }
+        return ranked;
+    }
+
+    /**
+     * @param userId the player id
+     * @return the player with their rank, null if they never played
+     */
+    public Ranked rank(long userId) {
+        Entry entry = scores.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        return new Ranked((int) counts.countAbove(entry.score) + 1, entry);
+    }
+
+    public long players() {
+        return scores.size();
+    }
+
+    /**
+     * @return true if the board changed since the last call
+     */
+    boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    /**
+     * mark the board as changed again, after a failed flush
+     */
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * called under the lock of the player's key, so a player has only one entry at a time
+     */
+    private void replace(Entry previous, Entry entry) {
+        if (previous != null) {
+            counts.add(previous.score, -1);
+            if (top.remove(previous)) {
+                topCount.decrementAndGet();
+            }
+        }
+        counts.add(entry.score, 1);
+        Entry last = topCount.get() >= topSize ? lastOrNull() : null;
+        if (last == null || ORDER.compare(entry, last) < 0) {
+            if (top.add(entry)) {
+                topCount.incrementAndGet();
+            }
+            while (topCount.get() > topSize && top.pollLast() != null) {
+                topCount.decrementAndGet();
+            }
+        }
+        dirty.set(true);
+    }
+
+    private Entry lastOrNull() {
+        try {
+            return top.last();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    /**
+     * score of a player
+     */
+    public static final class Entry {
+
+        private final long userId;
+        private final String username;
+        private final int score;
+        private final long achievedAt;
+
+        Entry(long userId, String username, int score, long achievedAt) {
+            this.userId = userId;
+            this.username = username;
+            this.score = score;
+            this.achievedAt = achievedAt;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public long getAchievedAt() {
+            return achievedAt;
+        }
+    }
+
+    /**
+     * a player and their rank
+     */
+    public static final class Ranked {
+
+        private final int rank;
+        private final Entry entry;
+
+        Ranked(int rank, Entry entry) {
+            this.rank = rank;
+            this.entry = entry;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package fr.loual.projectquizz.leaderboard;
+
+import fr.loual.projectquizz.model.dtos.BestResult;
+import fr.loual.projectquizz.model.dtos.LeaderboardRow;
+import fr.loual.projectquizz.model.dtos.TagLink;
+import fr.loual.projectquizz.model.entities.LeaderboardEntry;
+import fr.loual.projectquizz.repositories.LeaderboardEntryRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.QuizzResultRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Leaderboards of the quizzes and of the tags. A player's score on a quizz is their best result, on a tag
+ * it is the sum of their best results on the quizzes of the tag. Rankings are answered from memory only,
+ * rebuilt from the saved results at startup, and the tops are flushed to the database periodically.
+ * <p>
+ * The points of a result go to the tags the quizz had when it was played: retagging a quizz moves none of
+ * the points already counted, the tag boards follow the current tags only after the next restart rebuilds them.
+ */
+@Slf4j
+@Service
+public class LeaderboardService implements MeterBinder {
+
+    private final QuizzResultRepository quizzResultRepository;
+    private final QuizzRepository quizzRepository;
+    private final LeaderboardEntryRepository entryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTemplate;
+    private final int topSize;
+    private final ConcurrentHashMap<Long, Leaderboard> quizzBoards = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Leaderboard> tagBoards = new ConcurrentHashMap<>();
+
+    public LeaderboardService(QuizzResultRepository quizzResultRepository, QuizzRepository quizzRepository,
+                              LeaderboardEntryRepository entryRepository, PlatformTransactionManager transactionManager,
+                              @Value("${fr.loual.leaderboard.topSize:100}") int topSize) {
+        this.quizzResultRepository = quizzResultRepository;
+        this.quizzRepository = quizzRepository;
+        this.entryRepository = entryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.topSize = topSize;
+    }
+
+    /**
+     * rebuild the boards from the best result of each player on each quizz. Both cursors are sorted by quizz id,
+     * so the tags of a quizz are read while its results are, without holding all the links in memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Integer loaded = readTemplate.execute(status -> {
+            int count = 0;
+            try (Stream<BestResult> results = quizzResultRepository.streamBestResults();
+                 Stream<TagLink> links = quizzRepository.streamAllTagLinks()) {
+                Iterator<TagLink> linkIterator = links.iterator();
+                TagLink link = linkIterator.hasNext() ? linkIterator.next() : null;
+                Long tagsOwner = null;
+                List<String> tags = new ArrayList<>();
+                for (Iterator<BestResult> resultIterator = results.iterator(); resultIterator.hasNext(); count++) {
+                    BestResult result = resultIterator.next();
+                    if (!result.getQuizzId().equals(tagsOwner)) {
+                        tagsOwner = result.getQuizzId();
+                        tags = new ArrayList<>();
+                        while (link != null && link.getOwnerId() <= tagsOwner) {
+                            if (link.getOwnerId().equals(tagsOwner)) {
+                                tags.add(link.getTag());
+                            }
+                            link = linkIterator.hasNext() ? linkIterator.next() : null;
+                        }
+                    }
+                    record(result.getQuizzId(), tags, result.getUserId(), result.getUsername(), result.getScore(),
+                            result.getAchievedAt());
+                }
+            }
+            return count;
+        });
+        log.info("leaderboards loaded from {} results", loaded);
+    }
+
+    /**
+     * rank a result
+     * @param quizzId the quizz played
+     * @param tags the tags of the quizz when it was played, kept by the tag boards until the next restart
+     * @param userId the player id
+     * @param username the player name
+     * @param score the score
+     * @param achievedAt the end of the play
+     */
+    public void record(Long quizzId, Collection<String> tags, Long userId, String username, int score, Instant achievedAt) {
+        long time = achievedAt.toEpochMilli();
+        int improvement = quizzBoards.computeIfAbsent(quizzId, id -> newBoard())
+                .offer(userId, username, score, time);
+        if (improvement > 0) {
+            for (String tag : tags) {
+                tagBoards.computeIfAbsent(tag, key -> newBoard()).add(userId, username, improvement, time);
+            }
+        }
+    }
+
+    public List<LeaderboardRow> quizzTop(Long quizzId, int limit) {
+        return rows(quizzBoards.get(quizzId), limit);
+    }
+
+    public List<LeaderboardRow> tagTop(String tag, int limit) {
+        return rows(tagBoards.get(tag), limit);
+    }
+
+    public Optional<LeaderboardRow> quizzRank(Long quizzId, Long userId) {
+        return rank(quizzBoards.get(quizzId), userId);
+    }
+
+    public Optional<LeaderboardRow> tagRank(String tag, Long userId) {
+        return rank(tagBoards.get(tag), userId);
+    }
+
+    /**
+     * write the top of each board changed since the last flush
+     */
+    @Scheduled(fixedDelayString = "${fr.loual.leaderboard.flushSeconds:30}",
+            initialDelayString = "${fr.loual.leaderboard.flushSeconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void flush() {
+        int flushed = 0;
+        for (Map.Entry<Long, Leaderboard> board : quizzBoards.entrySet()) {
+            flushed += flush(LeaderboardEntry.QUIZZ, board.getKey().toString(), board.getValue());
+        }
+        for (Map.Entry<String, Leaderboard> board : tagBoards.entrySet()) {
+            flushed += flush(LeaderboardEntry.TAG, board.getKey(), board.getValue());
+        }
+        if (flushed > 0) {
+            log.debug("{} leaderboards flushed", flushed);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("leaderboard.boards", quizzBoards, Map::size).tag("type", "quizz").register(registry);
+        Gauge.builder("leaderboard.boards", tagBoards, Map::size).tag("type", "tag").register(registry);
+    }
+
+    private int flush(String boardType, String boardKey, Leaderboard board) {
+        if (!board.clearDirty()) {
+            return 0;
+        }
+        List<LeaderboardEntry> entries = new ArrayList<>(topSize);
+        for (Leaderboard.Ranked ranked : board.top(topSize)) {
+            Leaderboard.Entry entry = ranked.getEntry();
+            entries.add(new LeaderboardEntry().setBoardType(boardType).setBoardKey(boardKey)
+                    .setPosition(ranked.getRank()).setUserId(entry.getUserId()).setUsername(entry.getUsername())
+                    .setScore(entry.getScore()).setAchievedAt(Instant.ofEpochMilli(entry.getAchievedAt())));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entryRepository.deleteBoard(boardType, boardKey);
+                entryRepository.saveAll(entries);
+            });
+            return 1;
+        } catch (RuntimeException e) {
+            board.markDirty();
+            log.warn("leaderboard {} {} not flushed: {}", boardType, boardKey, e.getMessage());
+            return 0;
+        }
+    }
+
+    private Leaderboard newBoard() {
+        return new Leaderboard(topSize, 64);
+    }
+
+    private static List<LeaderboardRow> rows(Leaderboard board, int limit) {
+        if (board == null) {
+            return List.of();
+        }
+        List<LeaderboardRow> rows = new ArrayList<>();
+        for (Leaderboard.Ranked ranked : board.top(limit)) {
+            rows.add(row(ranked));
+        }
+        return rows;
+    }
+
+    private static Optional<LeaderboardRow> rank(Leaderboard board, Long userId) {
+        return Optional.ofNullable(board == null ? null : board.rank(userId)).map(LeaderboardService::row);
+    }
+
+    private static LeaderboardRow row(Leaderboard.Ranked ranked) {
+        return new LeaderboardRow(ranked.getRank(), ranked.getEntry().getUsername(), ranked.getEntry().getScore());
+    }
+
+}
@@ -0,0 +1,106 @@
+package fr.loual.projectquizz.leaderboard;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Number of players per score, in a Fenwick tree of atomic counters: counting the players above a score
+ * and moving a player between scores are both O(log n). Concurrent updates only add to counters and
+ * share the read lock, the write lock is taken to grow the tree when a score exceeds its capacity.
+ */
+final class ScoreCounts {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile AtomicLongArray tree;
+
+    ScoreCounts(int initialCapacity) {
+        this.tree = new AtomicLongArray(Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1);
+    }
+
+    /**
+     * @param score a score, 0 or more
+     * @param delta the number of players to add, negative to remove
+     */
+    void add(int score, long delta) {
+        ensureCapacity(score);
+        lock.readLock().lock();
+        try {
+            AtomicLongArray counts = tree;
+            for (int i = score + 1; i <= counts.length(); i += i & -i) {
+                counts.addAndGet(i - 1, delta);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param score a score
+     * @return the number of players with a strictly higher score
+     */
+    long countAbove(int score) {
+        lock.readLock().lock();
+        try {
+            AtomicLongArray counts = tree;
+            if (score + 1 >= counts.length()) {
+                return 0L;
+            }
+            return prefix(counts, counts.length()) - prefix(counts, score + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of players
+     */
+    long total() {
+        lock.readLock().lock();
+        try {
+            return prefix(tree, tree.length());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * sum of the counts of the scores below the given bound
+     */
+    private static long prefix(AtomicLongArray counts, int bound) {
+        long sum = 0L;
+        for (int i = bound; i > 0; i -= i & -i) {
+            sum += counts.get(i - 1);
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int score) {
+        if (score < tree.length()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            AtomicLongArray counts = tree;
+            if (score < counts.length()) {
+                return;
+            }
+            int capacity = counts.length();
+            while (capacity <= score) {
+                capacity <<= 1;
+            }
+            // a power of two tree doubled in size keeps its nodes, the new root holds the old total
+            AtomicLongArray grown = new AtomicLongArray(capacity);
+            for (int i = 0; i < counts.length(); i++) {
+                grown.set(i, counts.get(i));
+            }
+            long total = prefix(counts, counts.length());
+            for (int size = counts.length() << 1; size <= capacity; size <<= 1) {
+                grown.set(size - 1, total);
+            }
+            tree = grown;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package fr.loual.projectquizz.mapping;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the posted quizzes, questions and answers to new entities, field by field.
+ * Tag names are resolved by the {@link TagResolver}, and parent ids become references, so no parent is loaded :
+ * the owner of a question is read as the user id of its quizz. The public methods must be called in a transaction.
+ */
+@Component
+public class PostedMapper {
+
+    private final EntityManager entityManager;
+    private final TagResolver tagResolver;
+    private final QuizzRepository quizzRepository;
+
+    public PostedMapper(EntityManager entityManager, TagResolver tagResolver, QuizzRepository quizzRepository) {
+        this.entityManager = entityManager;
+        this.tagResolver = tagResolver;
+        this.quizzRepository = quizzRepository;
+    }
+
+    /**
+     * @param posted the posted quizz
+     * @return a new quizz with its tags, to be saved
+     */
+    public Quizz toQuizz(PostedQuizz posted) {
+        return toQuizz(posted, tagResolver.resolve(posted.getTags()));
+    }
+
+    /**
+     * @param posted the posted question, with its answers
+     * @return a new question, owned by the author of its quizz, with its answers to be saved after it
+     * @throws IllegalArgumentException if the quizz id is missing or unknown
+     */
+    public Question toQuestion(PostedQuestion posted) {
+        if (posted.getQuizzId() == null) {
+            throw new IllegalArgumentException("quizzId is required");
+        }
+        Long userId = quizzRepository.findUserIdById(posted.getQuizzId())
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Quizz not found : '%s'", posted.getQuizzId())));
+        return toQuestion(posted, entityManager.getReference(Quizz.class, posted.getQuizzId()),
+                entityManager.getReference(AppUser.class, userId), tagResolver.resolve(posted.getTags()));
+    }
+
+    /**
+     * @param posted the posted answer
+     * @return a new answer of the question given by id
+     */
+    public Answer toAnswer(PostedAnswer posted) {
+        Question question = posted.getQuestionId() == null ? null
+                : entityManager.getReference(Question.class, posted.getQuestionId());
+        return toAnswer(posted, question);
+    }
+
+    Quizz toQuizz(PostedQuizz posted, Map<String, Tags> tags) {
+        return new Quizz().setDescription(posted.getDescription())
+                .setCommentary(posted.getCommentary())
+                .setTags(TagResolver.tagsOf(posted.getTags(), tags))
+                .setUser(posted.getUser());
+    }
+
+    Question toQuestion(PostedQuestion posted, Quizz quizz, AppUser user, Map<String, Tags> tags) {
+        Question question = new Question().setQuizzQuestion(posted.getQuizzQuestion())
+                .setChoiceType(posted.getChoiceType())
+                .setFreeResponse(posted.getFreeResponse())
+                .setTags(TagResolver.tagsOf(posted.getTags(), tags))
+                .setQuizz(quizz)
+                .setUser(user);
+        List<Answer> answers = new ArrayList<>(posted.getAnswer() == null ? 0 : posted.getAnswer().size());
+        if (posted.getAnswer() != null) {
+            for (PostedAnswer answer : posted.getAnswer()) {
+                answers.add(toAnswer(answer, question));
+            }
+        }
+        return question.setAnswer(answers);
+    }
+
+    static Answer toAnswer(PostedAnswer posted, Question question) {
+        return new Answer().setQuizzAnswer(posted.getAnswer())
+                .setCorrect(posted.getCorrect())
+                .setQuestion(question);
+    }
+
+}
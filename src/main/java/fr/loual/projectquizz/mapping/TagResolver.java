@@ -0,0 +1,250 @@
+package fr.loual.projectquizz.mapping;
+
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.search.TagIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Resolves tag names to tags, creating the unknown ones. The ids of the known names are kept in memory,
+ * so the tags of a write usually cost no query. The names missing from the map are looked up with one query,
+ * and the ones missing from the table are inserted in one JDBC batch, in the transaction of the caller :
+ * they are committed or rolled back with the quizz or question carrying them, and only reach the map and
+ * the tag index once committed. Their ids come from the Hibernate generator of {@link Tags}, so they never
+ * collide with the blocks of the pooled sequence, and the statements are plain SQL.
+ * The batch runs in a savepoint : a concurrent transaction inserting one of the names first makes it fail
+ * on the unique constraint once that transaction commits, the savepoint is then rolled back and the names
+ * looked up again, until all of them are found or inserted.
+ * The returned tags are detached instances carrying the id and the name, enough to be linked to a quizz
+ * or a question without being loaded.
+ */
+@Slf4j
+@Component
+public class TagResolver implements MeterBinder {
+
+    private static final int IN_CLAUSE_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TagIndex tagIndex;
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder created = new LongAdder();
+
+    public TagResolver(JdbcTemplate jdbcTemplate, EntityManager entityManager, PlatformTransactionManager transactionManager,
+                       TagIndex tagIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tagIndex = tagIndex;
+    }
+
+    /**
+     * @param names the tag names, blank ones being ignored
+     * @return the tags by trimmed name
+     */
+    public Map<String, Tags> resolve(Collection<String> names) {
+        return resolve(names, count -> { });
+    }
+
+    /**
+     * resolve in the current transaction, or in one of its own without
+     * @param names the tag names, blank ones being ignored
+     * @param onCreated receives the number of tags inserted by this call
+     * @return the tags by trimmed name
+     */
+    public Map<String, Tags> resolve(Collection<String> names, IntConsumer onCreated) {
+        Set<String> distinct = names(names);
+        if (distinct.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Tags> tags = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : distinct) {
+            Long id = idsByName.get(name);
+            if (id == null) {
+                missing.add(name);
+            } else {
+                tags.put(name, new Tags(id, name));
+            }
+        }
+        hits.add(tags.size());
+        if (missing.isEmpty()) {
+            return tags;
+        }
+        misses.add(missing.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < missing.size(); i += IN_CLAUSE_SIZE) {
+                resolveMissing(missing.subList(i, Math.min(missing.size(), i + IN_CLAUSE_SIZE)), tags, onCreated);
+            }
+        });
+        return tags;
+    }
+
+    /**
+     * forget the names of a tag renamed or deleted
+     * @param id the tag id
+     */
+    public void evict(Long id) {
+        idsByName.values().removeIf(id::equals);
+    }
+
+    /**
+     * @param names the tag names of a quizz or question, blank and repeated ones being ignored
+     * @param tags the tags resolved for these names
+     * @return the tags in the order of their names
+     */
+    public static List<Tags> tagsOf(List<String> names, Map<String, Tags> tags) {
+        Set<String> distinct = names(names);
+        List<Tags> resolved = new ArrayList<>(distinct.size());
+        for (String name : distinct) {
+            resolved.add(tags.get(name));
+        }
+        return resolved;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tags.resolved", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("tags.resolved", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("tags.created", created, LongAdder::sum).register(registry);
+    }
+
+    private void resolveMissing(List<String> slice, Map<String, Tags> tags, IntConsumer onCreated) {
+        Map<String, Long> found = select(slice);
+        // committed by other transactions, they can be published at once
+        found.forEach(idsByName::put);
+        // sorted, so that concurrent inserts of the same names wait for each other instead of deadlocking
+        List<String> unknown = new ArrayList<>(slice.size() - found.size());
+        slice.stream().filter(name -> !found.containsKey(name)).sorted().forEach(unknown::add);
+        Map<String, Long> inserted = new HashMap<>();
+        while (!unknown.isEmpty()) {
+            Map<String, Long> ids = newIds(unknown);
+            try {
+                insert(ids);
+                inserted.putAll(ids);
+                unknown.clear();
+            } catch (DuplicateKeyException e) {
+                log.debug("tags inserted concurrently, looking them up again : {}", e.getMessage());
+                Map<String, Long> concurrent = select(unknown);
+                if (concurrent.isEmpty()) {
+                    throw e;
+                }
+                concurrent.forEach(idsByName::put);
+                found.putAll(concurrent);
+                unknown.removeAll(concurrent.keySet());
+            }
+        }
+        found.forEach((name, id) -> tags.put(name, new Tags(id, name)));
+        if (inserted.isEmpty()) {
+            return;
+        }
+        inserted.forEach((name, id) -> tags.put(name, new Tags(id, name)));
+        created.add(inserted.size());
+        onCreated.accept(inserted.size());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inserted.forEach((name, id) -> {
+                    idsByName.put(name, id);
+                    tagIndex.tagSaved(id, name);
+                });
+            }
+        });
+    }
+
+    private Map<String, Long> select(List<String> names) {
+        Map<String, Long> found = new HashMap<>();
+        jdbcTemplate.query("select id, tag from tags where tag in (" + placeholders(names.size(), "?") + ")",
+                row -> { found.put(row.getString(2), row.getLong(1)); }, names.toArray());
+        return found;
+    }
+
+    private Map<String, Long> newIds(List<String> names) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(Tags.class)
+                .getIdentifierGenerator();
+        Map<String, Long> ids = new LinkedHashMap<>();
+        for (String name : names) {
+            ids.put(name, (Long) generator.generate(session, null));
+        }
+        return ids;
+    }
+
+    private void insert(Map<String, Long> ids) {
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        ids.forEach((name, id) -> rows.add(new Object[]{id, name}));
+        // the connection of the current transaction, a failed batch is rolled back alone
+        Connection connection = DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+        try {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.batchUpdate("insert into tags (id, tag) values (?, ?)", rows);
+            } catch (RuntimeException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new CannotCreateTransactionException("Unable to use a savepoint for the tag inserts", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+        }
+    }
+
+    private static String placeholders(int count, String placeholder) {
+        StringBuilder builder = new StringBuilder(count * (placeholder.length() + 1));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(placeholder);
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> names(Collection<String> names) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                if (name != null && !name.isBlank()) {
+                    distinct.add(name.trim());
+                }
+            }
+        }
+        return distinct;
+    }
+
+}
@@ -0,0 +1,25 @@
+package fr.loual.projectquizz.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Read model of an answer, built by a JPQL constructor expression
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+public class AnswerView {
+
+    private Long id;
+    private String quizzAnswer;
+    @JsonIgnore
+    private Long questionId;
+    @JsonIgnore
+    private Boolean correct;
+
+}
@@ -0,0 +1,23 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Projection row of the best result of a player on a quizz
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BestResult {
+
+    private Long quizzId;
+    private Long userId;
+    private String username;
+    private int score;
+    private Instant achievedAt;
+
+}
@@ -0,0 +1,21 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Counts and throughput of a bulk import, rows being the quizzes, questions and answers inserted
+ */
+@Data
+@AllArgsConstructor
+public class ImportReport {
+
+    private long quizzes;
+    private long questions;
+    private long answers;
+    private long tags;
+    private int chunks;
+    private long millis;
+    private long rowsPerSecond;
+
+}
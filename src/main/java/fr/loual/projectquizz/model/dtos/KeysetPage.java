@@ -0,0 +1,41 @@
+package fr.loual.projectquizz.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import fr.loual.projectquizz.tools.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * A page of a listing paginated on the ids, with the cursor of the next page (null on the last one)
+ * @param <T> the type of the items
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KeysetPage<T> {
+
+    private List<T> items;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
+    /**
+     * build a page from a query run with a limit of size + 1, the extra row only telling that a next page exists
+     * @param rows the rows returned by the query
+     * @param size the page size
+     * @param id the id of an item
+     * @param <T> the type of the items
+     * @return the page
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, ToLongFunction<T> id) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, KeysetCursor.encode(id.applyAsLong(items.get(size - 1))));
+    }
+
+}
@@ -0,0 +1,17 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A player in a leaderboard
+ */
+@Data
+@AllArgsConstructor
+public class LeaderboardRow {
+
+    private int rank;
+    private String username;
+    private int score;
+
+}
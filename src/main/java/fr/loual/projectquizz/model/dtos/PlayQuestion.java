@@ -0,0 +1,36 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Question sent to a player, without the correct answers
+ */
+@Data
+@AllArgsConstructor
+public class PlayQuestion {
+
+    private String sessionId;
+    private int position;
+    private int total;
+    private Long questionId;
+    private String quizzQuestion;
+    private boolean choiceType;
+    private boolean freeResponse;
+    private List<Choice> choices;
+
+    /**
+     * a possible answer of a choice question
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Choice {
+
+        private Long id;
+        private String quizzAnswer;
+
+    }
+
+}
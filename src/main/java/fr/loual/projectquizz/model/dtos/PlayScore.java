@@ -0,0 +1,20 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Progress and score of a play session
+ */
+@Data
+@AllArgsConstructor
+public class PlayScore {
+
+    private String sessionId;
+    private Long quizzId;
+    private int answered;
+    private int total;
+    private int score;
+    private boolean finished;
+
+}
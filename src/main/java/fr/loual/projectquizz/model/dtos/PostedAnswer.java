@@ -3,6 +3,8 @@ package fr.loual.projectquizz.model.dtos;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
+import java.util.List;
+
 
 @Data
 @Accessors(chain = true)
@@ -10,5 +12,8 @@ public class PostedAnswer {
 
     private String answer;
     private Long questionId;
+    private Boolean correct;
+    /** ids of the chosen answers, when answering a choice question during a play session */
+    private List<Long> answerIds;
 
 }
@@ -0,0 +1,34 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model of a question with its tags and answers, the scalar part being built by a JPQL constructor expression
+ */
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+public class QuestionView {
+
+    private Long id;
+    private String quizzQuestion;
+    private Boolean choiceType;
+    private Boolean freeResponse;
+    private Long quizzId;
+    private List<String> tags = new ArrayList<>();
+    private List<AnswerView> answers = new ArrayList<>();
+
+    public QuestionView(Long id, String quizzQuestion, Boolean choiceType, Boolean freeResponse, Long quizzId) {
+        this.id = id;
+        this.quizzQuestion = quizzQuestion;
+        this.choiceType = choiceType;
+        this.freeResponse = freeResponse;
+        this.quizzId = quizzId;
+    }
+
+}
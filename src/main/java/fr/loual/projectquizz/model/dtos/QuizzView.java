@@ -0,0 +1,43 @@
+package fr.loual.projectquizz.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model of a quizz with its tags and, for the detail view, its questions.
+ * The scalar part is built by a JPQL constructor expression, the version only for the detail view
+ */
+@Data
+@NoArgsConstructor
+@Accessors(chain = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuizzView {
+
+    private Long id;
+    private String description;
+    private String commentary;
+    private String author;
+    private List<String> tags = new ArrayList<>();
+    private List<QuestionView> questions;
+    @JsonIgnore
+    private Long version;
+
+    public QuizzView(Long id, String description, String commentary, String author) {
+        this.id = id;
+        this.description = description;
+        this.commentary = commentary;
+        this.author = author;
+    }
+
+    public QuizzView(Long id, String description, String commentary, String author, Long version) {
+        this(id, description, commentary, author);
+        this.version = version;
+    }
+
+}
@@ -0,0 +1,24 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Question pushed to the participants of a live room, without the correct answers
+ */
+@Data
+@AllArgsConstructor
+public class RoomQuestion {
+
+    private String roomId;
+    private int position;
+    private int total;
+    private Long questionId;
+    private String quizzQuestion;
+    private boolean choiceType;
+    private boolean freeResponse;
+    private List<PlayQuestion.Choice> choices;
+
+}
@@ -0,0 +1,21 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ranking of the participants of a live room, pushed after each question
+ */
+@Data
+@AllArgsConstructor
+public class RoomScores {
+
+    private String roomId;
+    private int answered;
+    private int total;
+    private boolean finished;
+    private List<LeaderboardRow> ranking;
+
+}
@@ -0,0 +1,20 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A full-text search result : a quizz or a question, its BM25 score and its indexed text
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHit {
+
+    private String type;
+    private Long id;
+    private float score;
+    private String text;
+
+}
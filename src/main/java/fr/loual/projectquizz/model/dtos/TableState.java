@@ -0,0 +1,26 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Projection of the rows of a versioned table : their number, the sums and max of their ids and the sum
+ * of their versions, any insert, delete or edit of a row changing one of them
+ */
+@Data
+@AllArgsConstructor
+public class TableState {
+
+    private long count;
+    private long maxId;
+    private long idSum;
+    private long versionSum;
+
+    /**
+     * @return the state written as a compact string
+     */
+    public String toMarker() {
+        return count + ":" + maxId + ":" + idSum + ":" + versionSum;
+    }
+
+}
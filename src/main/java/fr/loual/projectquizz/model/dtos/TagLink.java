@@ -0,0 +1,24 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projection row linking a quizz or a question id to one of its tags, with the tag id when the index needs it
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TagLink {
+
+    private Long ownerId;
+    private Long tagId;
+    private String tag;
+
+    public TagLink(Long ownerId, String tag) {
+        this.ownerId = ownerId;
+        this.tag = tag;
+    }
+
+}
@@ -0,0 +1,18 @@
+package fr.loual.projectquizz.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A tag with the number of quizzes and questions using it
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TagSuggestion {
+
+    private String tag;
+    private int usage;
+
+}
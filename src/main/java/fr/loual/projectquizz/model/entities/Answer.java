@@ -18,9 +18,11 @@ import java.util.Objects;
 public class Answer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_seq")
+    @SequenceGenerator(name = "answer_seq", sequenceName = "answer_seq", allocationSize = 50)
     private Long id;
     private String quizzAnswer;
+    private Boolean correct;
     @ManyToOne
     private Question question;
 
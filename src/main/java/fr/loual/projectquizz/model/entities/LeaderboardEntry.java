@@ -0,0 +1,51 @@
+package fr.loual.projectquizz.model.entities;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Row of a leaderboard top, written by the periodic flush of the in-memory leaderboards
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_leaderboard_entry_board", columnList = "boardType, boardKey"))
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+public class LeaderboardEntry {
+
+    public static final String QUIZZ = "QUIZZ";
+    public static final String TAG = "TAG";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leaderboard_entry_seq")
+    @SequenceGenerator(name = "leaderboard_entry_seq", sequenceName = "leaderboard_entry_seq", allocationSize = 50)
+    private Long id;
+    private String boardType;
+    private String boardKey;
+    private int position;
+    private Long userId;
+    private String username;
+    private int score;
+    private Instant achievedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        LeaderboardEntry entry = (LeaderboardEntry) o;
+        return id != null && Objects.equals(id, entry.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -1,5 +1,6 @@
 package fr.loual.projectquizz.model.entities;
 
+import fr.loual.projectquizz.search.TagIndexEntityListener;
 import fr.loual.projectquizz.security.model.entities.AppUser;
 import lombok.*;
 import lombok.experimental.Accessors;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(TagIndexEntityListener.class)
 @Getter
 @Setter
 @ToString
@@ -18,11 +20,16 @@ import java.util.Objects;
 @Accessors(chain = true)
 public class Question {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_seq")
+    @SequenceGenerator(name = "question_seq", sequenceName = "question_seq", allocationSize = 50)
     private Long id;
     private String quizzQuestion;
     private Boolean choiceType;
     private Boolean freeResponse;
+    /** bumped by any change of the question, a change of its tags alone included */
+    @Version
+    private long version;
     @ManyToMany
     @ToString.Exclude
     @JoinTable(name = "question_tags",
@@ -1,28 +1,39 @@
 package fr.loual.projectquizz.model.entities;
 
+import fr.loual.projectquizz.search.TagIndexEntityListener;
 import fr.loual.projectquizz.security.model.entities.AppUser;
 import lombok.*;
 import lombok.experimental.Accessors;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(TagIndexEntityListener.class)
 @Getter
 @Setter
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
 @Accessors(chain = true)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Quizz {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quizz_seq")
+    @SequenceGenerator(name = "quizz_seq", sequenceName = "quizz_seq", allocationSize = 50)
     private Long id;
     private String description;
     private String commentary;
+    /** bumped by any change of the quizz, its tags, questions or answers, primitive so that a quizz given by id stays detached */
+    @Version
+    private long version;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(name = "quizz_tags",
             joinColumns = @JoinColumn(name = "quizz_id"),
@@ -0,0 +1,52 @@
+package fr.loual.projectquizz.model.entities;
+
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Final result of a play session, the only part of a session written to the database
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Accessors(chain = true)
+public class QuizzResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "quizz_id", nullable = false)
+    @ToString.Exclude
+    private Quizz quizz;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    private AppUser user;
+    private int score;
+    private int maxScore;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        QuizzResult result = (QuizzResult) o;
+        return id != null && Objects.equals(id, result.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
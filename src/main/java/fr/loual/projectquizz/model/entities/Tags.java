@@ -1,21 +1,29 @@
 package fr.loual.projectquizz.model.entities;
 
+import fr.loual.projectquizz.search.TagIndexEntityListener;
 import lombok.*;
 import lombok.experimental.Accessors;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(TagIndexEntityListener.class)
 @Getter
 @Setter
 @ToString
 @Accessors(chain = true)
 @AllArgsConstructor @NoArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Tags {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tags_seq")
+    @SequenceGenerator(name = "tags_seq", sequenceName = "tags_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true)
     private String tag;
@@ -0,0 +1,67 @@
+package fr.loual.projectquizz.play;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Immutable state of a play session, each step builds a new one
+ */
+@Getter
+public final class PlaySession {
+
+    private final String id;
+    private final String username;
+    private final Long userId;
+    private final QuizzSnapshot quizz;
+    private final int position;
+    private final int score;
+    private final Instant startedAt;
+    private final long lastAccessNanos;
+
+    public PlaySession(String id, String username, Long userId, QuizzSnapshot quizz, int position, int score,
+                       Instant startedAt, long lastAccessNanos) {
+        this.id = id;
+        this.username = username;
+        this.userId = userId;
+        this.quizz = quizz;
+        this.position = position;
+        this.score = score;
+        this.startedAt = startedAt;
+        this.lastAccessNanos = lastAccessNanos;
+    }
+
+    public boolean isFinished() {
+        return position >= quizz.size();
+    }
+
+    /**
+     * @return the question to answer, or null when all the questions are answered
+     */
+    public QuizzSnapshot.QuestionSnapshot currentQuestion() {
+        return isFinished() ? null : quizz.getQuestions().get(position);
+    }
+
+    /**
+     * @param points the points earned on the current question
+     * @param now the current time from System.nanoTime
+     * @return the session moved to the next question
+     */
+    public PlaySession answered(int points, long now) {
+        return new PlaySession(id, username, userId, quizz, position + 1, score + points, startedAt, now);
+    }
+
+    /**
+     * @param points the points earned on all the remaining questions
+     * @param now the current time from System.nanoTime
+     * @return the session with all its questions answered
+     */
+    public PlaySession completed(int points, long now) {
+        return new PlaySession(id, username, userId, quizz, quizz.size(), score + points, startedAt, now);
+    }
+
+    public PlaySession touched(long now) {
+        return new PlaySession(id, username, userId, quizz, position, score, startedAt, now);
+    }
+
+}
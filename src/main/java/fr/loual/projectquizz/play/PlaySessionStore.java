@@ -0,0 +1,170 @@
+package fr.loual.projectquizz.play;
+
+import fr.loual.projectquizz.exceptions.PlaySessionNotFoundException;
+import fr.loual.projectquizz.exceptions.TooManyPlaySessionsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded in-memory store of the active play sessions. Sessions idle for longer than the ttl are evicted,
+ * new sessions are refused when the store is full rather than evicting players still playing. A slot is
+ * reserved before a session is put, so concurrent starts can not go past the bound.
+ * Sessions are immutable and replaced atomically, so concurrent answers of a same session are serialized.
+ */
+@Component
+public class PlaySessionStore implements MeterBinder {
+
+    private final ConcurrentHashMap<String, PlaySession> sessions = new ConcurrentHashMap<>();
+    /** sessions held or being added, every removal from the map releases one */
+    private final AtomicInteger slots = new AtomicInteger();
+    private final int maxSessions;
+    private final long ttlNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PlaySessionStore(@Value("${fr.loual.play.maxSessions:10000}") int maxSessions,
+                            @Value("${fr.loual.play.ttlMinutes:30}") long ttlMinutes) {
+        this.maxSessions = maxSessions;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+    }
+
+    /**
+     * add a new session
+     * @param session the session
+     * @throws TooManyPlaySessionsException if the store is full
+     */
+    public void add(PlaySession session) {
+        long now = session.getLastAccessNanos();
+        if (!reserve()) {
+            sweep(now, true);
+            if (!reserve()) {
+                rejected.increment();
+                throw new TooManyPlaySessionsException("Too many active play sessions, retry later");
+            }
+        } else {
+            sweep(now, false);
+        }
+        if (sessions.put(session.getId(), session) != null) {
+            slots.decrementAndGet();
+        }
+    }
+
+    /**
+     * put back a session just removed, whose end could not be saved. Its slot was released a moment ago,
+     * it is taken again even if the store filled up meanwhile so that the player can retry
+     * @param session the session
+     */
+    public void restore(PlaySession session) {
+        if (sessions.putIfAbsent(session.getId(), session) == null) {
+            slots.incrementAndGet();
+        }
+    }
+
+    /**
+     * get a session of a user
+     * @param id the session id
+     * @param username the user
+     * @return the session
+     * @throws PlaySessionNotFoundException if the session is unknown, expired or not the user's one
+     */
+    public PlaySession get(String id, String username) {
+        return update(id, username, session -> session.touched(System.nanoTime()));
+    }
+
+    /**
+     * atomically replace a session of a user
+     * @param id the session id
+     * @param username the user
+     * @param step the change, applied to the current state
+     * @return the new state
+     * @throws PlaySessionNotFoundException if the session is unknown, expired or not the user's one
+     */
+    public PlaySession update(String id, String username, UnaryOperator<PlaySession> step) {
+        long now = System.nanoTime();
+        PlaySession updated = sessions.computeIfPresent(id, (key, session) -> {
+            if (isExpired(session, now)) {
+                expired.increment();
+                slots.decrementAndGet();
+                return null;
+            }
+            return session.getUsername().equals(username) ? step.apply(session) : session;
+        });
+        if (updated == null || !updated.getUsername().equals(username)) {
+            throw new PlaySessionNotFoundException(id);
+        }
+        return updated;
+    }
+
+    /**
+     * remove a session of a user
+     * @param id the session id
+     * @param username the user
+     * @return the removed session
+     * @throws PlaySessionNotFoundException if the session is unknown, expired or not the user's one
+     */
+    public PlaySession remove(String id, String username) {
+        PlaySession session = sessions.get(id);
+        if (session == null || !session.getUsername().equals(username) || !sessions.remove(id, session)) {
+            throw new PlaySessionNotFoundException(id);
+        }
+        slots.decrementAndGet();
+        return session;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("play.sessions.active", this, PlaySessionStore::size).register(registry);
+        FunctionCounter.builder("play.sessions.expired", expired, LongAdder::sum).register(registry);
+        FunctionCounter.builder("play.sessions.rejected", rejected, LongAdder::sum).register(registry);
+    }
+
+    private boolean reserve() {
+        int taken;
+        do {
+            taken = slots.get();
+            if (taken >= maxSessions) {
+                return false;
+            }
+        } while (!slots.compareAndSet(taken, taken + 1));
+        return true;
+    }
+
+    private boolean isExpired(PlaySession session, long now) {
+        return now - session.getLastAccessNanos() > ttlNanos;
+    }
+
+    /**
+     * drop the expired sessions, at most once per ttl / 10 unless the store is full
+     */
+    private void sweep(long now, boolean force) {
+        long last = lastSweep.get();
+        if ((!force && now - last < ttlNanos / 10) || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Map.Entry<String, PlaySession> entry : sessions.entrySet()) {
+            // a session touched since it was read is not removed
+            if (isExpired(entry.getValue(), now) && sessions.remove(entry.getKey(), entry.getValue())) {
+                expired.increment();
+                slots.decrementAndGet();
+            }
+        }
+    }
+
+}
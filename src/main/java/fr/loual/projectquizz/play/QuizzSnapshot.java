@@ -0,0 +1,129 @@
+package fr.loual.projectquizz.play;
+
+import fr.loual.projectquizz.grading.AnswerMatcher;
+import fr.loual.projectquizz.grading.GradingEngine;
+import fr.loual.projectquizz.model.dtos.AnswerView;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a quizz taken when it is played, shared by all the sessions of the quizz,
+ * with the answers of each question compiled for the grading
+ */
+@Getter
+public final class QuizzSnapshot {
+
+    private final Long quizzId;
+    private final String description;
+    private final List<String> tags;
+    private final List<QuestionSnapshot> questions;
+    @Getter(AccessLevel.NONE)
+    private final AnswerMatcher[] matchers;
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, Integer> positions;
+
+    private QuizzSnapshot(Long quizzId, String description, List<String> tags, List<QuestionSnapshot> questions,
+                          GradingEngine grading) {
+        this.quizzId = quizzId;
+        this.description = description;
+        this.tags = tags;
+        this.questions = questions;
+        this.matchers = new AnswerMatcher[questions.size()];
+        this.positions = new HashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            matchers[i] = grading.compile(questions.get(i));
+            positions.put(questions.get(i).getId(), i);
+        }
+    }
+
+    /**
+     * @param quizz the full quizz view, with its questions and answers
+     * @param grading the engine compiling the answers
+     * @return the snapshot
+     */
+    public static QuizzSnapshot of(QuizzView quizz, GradingEngine grading) {
+        List<QuestionSnapshot> questions = new ArrayList<>(quizz.getQuestions().size());
+        for (QuestionView question : quizz.getQuestions()) {
+            questions.add(QuestionSnapshot.of(question));
+        }
+        return new QuizzSnapshot(quizz.getId(), quizz.getDescription(), List.copyOf(quizz.getTags()),
+                Collections.unmodifiableList(questions), grading);
+    }
+
+    public int size() {
+        return questions.size();
+    }
+
+    /**
+     * @param questionId a question id
+     * @return the position of the question in the quizz, or -1 if it is not part of the quizz
+     */
+    public int positionOf(Long questionId) {
+        return positions.getOrDefault(questionId, -1);
+    }
+
+    /**
+     * @param position the position of a question
+     * @return the compiled answers of the question
+     */
+    public AnswerMatcher matcher(int position) {
+        return matchers[position];
+    }
+
+    /**
+     * a question and its possible answers
+     */
+    @Getter
+    public static final class QuestionSnapshot {
+
+        private final Long id;
+        private final String text;
+        private final boolean choiceType;
+        private final boolean freeResponse;
+        private final List<Option> options;
+
+        private QuestionSnapshot(Long id, String text, boolean choiceType, boolean freeResponse, List<Option> options) {
+            this.id = id;
+            this.text = text;
+            this.choiceType = choiceType;
+            this.freeResponse = freeResponse;
+            this.options = options;
+        }
+
+        private static QuestionSnapshot of(QuestionView question) {
+            List<Option> options = new ArrayList<>(question.getAnswers().size());
+            for (AnswerView answer : question.getAnswers()) {
+                options.add(new Option(answer.getId(), answer.getQuizzAnswer(), Boolean.TRUE.equals(answer.getCorrect())));
+            }
+            return new QuestionSnapshot(question.getId(), question.getQuizzQuestion(),
+                    Boolean.TRUE.equals(question.getChoiceType()), Boolean.TRUE.equals(question.getFreeResponse()),
+                    Collections.unmodifiableList(options));
+        }
+    }
+
+    /**
+     * a possible answer of a question
+     */
+    @Getter
+    public static final class Option {
+
+        private final Long id;
+        private final String text;
+        private final boolean correct;
+
+        private Option(Long id, String text, boolean correct) {
+            this.id = id;
+            this.text = text;
+            this.correct = correct;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package fr.loual.projectquizz.play;
+
+import fr.loual.projectquizz.grading.GradingEngine;
+import fr.loual.projectquizz.services.QuizzReadService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short lived cache of the quizz snapshots. Sessions starting together on a same quizz share one snapshot,
+ * loaded once, and a session keeps its snapshot until it ends even if the quizz is edited meanwhile.
+ * The writes changing or deleting a quizz evict its snapshot once committed, a load overlapping such
+ * an eviction is not kept, so new sessions never start on an older version than the database.
+ */
+@Component
+public class QuizzSnapshotCache implements MeterBinder {
+
+    private final QuizzReadService quizzReadService;
+    private final GradingEngine gradingEngine;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Long, Entry> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LongAdder loads = new LongAdder();
+
+    public QuizzSnapshotCache(QuizzReadService quizzReadService, GradingEngine gradingEngine,
+                              @Value("${fr.loual.play.snapshotTtlSeconds:60}") long ttlSeconds,
+                              @Value("${fr.loual.play.maxSnapshots:1000}") int maxEntries) {
+        this.quizzReadService = quizzReadService;
+        this.gradingEngine = gradingEngine;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param quizzId the quizz id
+     * @return the snapshot of the quizz, or null if the quizz does not exist
+     */
+    public QuizzSnapshot get(Long quizzId) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry entry = snapshots.get(quizzId);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                return entry.await();
+            }
+            if (entry == null && snapshots.size() >= maxEntries) {
+                snapshots.values().removeIf(stale -> now - stale.loadedAt >= ttlNanos);
+            }
+            // a concurrent miss on the same quizz waits for the future of this load instead of running its own,
+            // the load itself runs outside of the map so that it blocks no other quizz
+            Entry loading = new Entry(now);
+            if (entry == null ? snapshots.putIfAbsent(quizzId, loading) == null : snapshots.replace(quizzId, entry, loading)) {
+                return load(quizzId, loading);
+            }
+        }
+    }
+
+    /**
+     * drop the snapshot of a quizz once the current transaction commits, or now without transaction,
+     * the running sessions keep theirs
+     * @param quizzId the quizz id
+     */
+    public void evict(Long quizzId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            drop(quizzId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                drop(quizzId);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("play.snapshots.loads", loads, LongAdder::sum).register(registry);
+    }
+
+    private QuizzSnapshot load(Long quizzId, Entry loading) {
+        loads.increment();
+        long generation = evictions.get();
+        QuizzSnapshot snapshot;
+        try {
+            snapshot = quizzReadService.findQuizz(quizzId).map(quizz -> QuizzSnapshot.of(quizz, gradingEngine)).orElse(null);
+        } catch (RuntimeException e) {
+            snapshots.remove(quizzId, loading);
+            loading.snapshot.completeExceptionally(e);
+            throw e;
+        }
+        loading.snapshot.complete(snapshot);
+        // a missing quizz is not kept, nor a snapshot possibly older than a write committed during the load
+        if (snapshot == null || evictions.get() != generation) {
+            snapshots.remove(quizzId, loading);
+        }
+        return snapshot;
+    }
+
+    private void drop(Long quizzId) {
+        evictions.incrementAndGet();
+        snapshots.remove(quizzId);
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<QuizzSnapshot> snapshot = new CompletableFuture<>();
+        private final long loadedAt;
+
+        private Entry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        private QuizzSnapshot await() {
+            try {
+                return snapshot.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+}
@@ -1,10 +1,40 @@
 package fr.loual.projectquizz.repositories;
 
 
+import fr.loual.projectquizz.model.dtos.AnswerView;
 import fr.loual.projectquizz.model.entities.Answer;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface AnswerRepository extends CrudRepository<Answer, Long> {
+
+    @Query("select new fr.loual.projectquizz.model.dtos.AnswerView(a.id, a.quizzAnswer, a.question.id, a.correct) " +
+            "from Answer a where a.question.id = :questionId order by a.id")
+    List<AnswerView> findViewsByQuestionId(@Param("questionId") Long questionId);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.AnswerView(a.id, a.quizzAnswer, q.id, a.correct) " +
+            "from Answer a join a.question q where q.quizz.id = :quizzId order by a.id")
+    List<AnswerView> findViewsByQuizzId(@Param("quizzId") Long quizzId);
+
+    /**
+     * export stream, in the order of the questions export stream. An answer without question has no line
+     * to be written in, those are only counted
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.AnswerView(a.id, a.quizzAnswer, q.id, a.correct) " +
+            "from Answer a join a.question q order by coalesce(q.quizz.id, 0), q.id, a.id")
+    Stream<AnswerView> streamAllViews();
+
+    long countByQuestionIsNull();
 }
@@ -0,0 +1,16 @@
+package fr.loual.projectquizz.repositories;
+
+import fr.loual.projectquizz.model.entities.LeaderboardEntry;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeaderboardEntryRepository extends CrudRepository<LeaderboardEntry, Long> {
+
+    @Modifying
+    @Query("delete from LeaderboardEntry e where e.boardType = :boardType and e.boardKey = :boardKey")
+    int deleteBoard(String boardType, String boardKey);
+
+}
@@ -1,16 +1,73 @@
 package fr.loual.projectquizz.repositories;
 
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.TableState;
+import fr.loual.projectquizz.model.dtos.TagLink;
 import fr.loual.projectquizz.model.entities.Question;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 
 @Repository
 public interface QuestionRepository extends CrudRepository<Question, Long> {
 
-    List<Question> findByTagsTagContaining(String tag);
-    List<Question> findAllByTagsTag(String tag);
+    @Query("select new fr.loual.projectquizz.model.dtos.QuestionView(q.id, q.quizzQuestion, q.choiceType, q.freeResponse, q.quizz.id) " +
+            "from Question q join q.tags t where t.tag = :tag and q.id > :after order by q.id")
+    List<QuestionView> findViewsByTag(@Param("tag") String tag, @Param("after") long after, Pageable page);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.TableState(count(q), coalesce(max(q.id), 0), " +
+            "coalesce(sum(q.id), 0), coalesce(sum(q.version), 0)) from Question q")
+    TableState findTableState();
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuestionView(q.id, q.quizzQuestion, q.choiceType, q.freeResponse, q.quizz.id) " +
+            "from Question q where q.id in :ids order by q.id")
+    List<QuestionView> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuestionView(q.id, q.quizzQuestion, q.choiceType, q.freeResponse, q.quizz.id) " +
+            "from Question q where q.id = :id")
+    Optional<QuestionView> findViewById(@Param("id") Long id);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuestionView(q.id, q.quizzQuestion, q.choiceType, q.freeResponse, q.quizz.id) " +
+            "from Question q where q.quizz.id = :quizzId order by q.id")
+    List<QuestionView> findViewsByQuizzId(@Param("quizzId") Long quizzId);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.tag) " +
+            "from Question q join q.tags t where q.id = :id order by t.tag")
+    List<TagLink> findTagLinksByQuestionId(@Param("id") Long id);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.tag) " +
+            "from Question q join q.tags t where q.id in :ids order by t.tag")
+    List<TagLink> findTagLinksByQuestionIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.tag) " +
+            "from Question q join q.tags t where q.quizz.id = :quizzId order by t.tag")
+    List<TagLink> findTagLinksByQuizzId(@Param("quizzId") Long quizzId);
+
+    /*
+     * export streams, ordered by quizz then question, the questions without quizz coming first
+     */
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.QuestionView(q.id, q.quizzQuestion, q.choiceType, q.freeResponse, q.quizz.id) " +
+            "from Question q order by coalesce(q.quizz.id, 0), q.id")
+    Stream<QuestionView> streamAllViews();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.id, t.tag) " +
+            "from Question q join q.tags t order by coalesce(q.quizz.id, 0), q.id")
+    Stream<TagLink> streamAllTagLinks();
 
 }
@@ -1,18 +1,77 @@
 package fr.loual.projectquizz.repositories;
 
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.dtos.TableState;
+import fr.loual.projectquizz.model.dtos.TagLink;
 import fr.loual.projectquizz.model.entities.Quizz;
-import fr.loual.projectquizz.security.model.entities.AppUser;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface QuizzRepository extends CrudRepository<Quizz, Long> {
 
-    Optional<List<Quizz>> findAllByUser(AppUser user);
     Optional<Quizz> findById(Long id);
-    Optional<List<Quizz>> findByTagsTagContaining(String tag);
-    Optional<List<Quizz>> findAllByTagsTag(String tag);
+
+    /*
+     * listings are paginated on the primary key : "id > :after order by id" with a limit
+     * reads the same number of rows whatever the depth of the page
+     */
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuizzView(q.id, q.description, q.commentary, u.username) " +
+            "from Quizz q join q.user u where u.username = :username and q.id > :after order by q.id")
+    List<QuizzView> findViewsByUsername(@Param("username") String username, @Param("after") long after, Pageable page);
+
+    // tag listings go through the query cache, invalidated by any write to the quizzes or their tags
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new fr.loual.projectquizz.model.dtos.QuizzView(q.id, q.description, q.commentary, u.username) " +
+            "from Quizz q join q.user u join q.tags t where t.tag = :tag and q.id > :after order by q.id")
+    List<QuizzView> findViewsByTag(@Param("tag") String tag, @Param("after") long after, Pageable page);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.TableState(count(q), coalesce(max(q.id), 0), " +
+            "coalesce(sum(q.id), 0), coalesce(sum(q.version), 0)) from Quizz q")
+    TableState findTableState();
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuizzView(q.id, q.description, q.commentary, u.username) " +
+            "from Quizz q join q.user u where q.id in :ids order by q.id")
+    List<QuizzView> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new fr.loual.projectquizz.model.dtos.QuizzView(q.id, q.description, q.commentary, u.username, q.version) " +
+            "from Quizz q join q.user u where q.id = :id")
+    Optional<QuizzView> findViewById(@Param("id") Long id);
+
+    // the foreign key column, the user is not joined
+    @Query("select q.user.id from Quizz q where q.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.tag) " +
+            "from Quizz q join q.tags t where q.id in :ids order by t.tag")
+    List<TagLink> findTagLinksByQuizzIds(@Param("ids") Collection<Long> ids);
+
+    /*
+     * export and startup streams : forward-only cursors read by fetches of 1000 rows, to be consumed in a transaction
+     */
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.QuizzView(q.id, q.description, q.commentary, u.username) " +
+            "from Quizz q join q.user u order by q.id")
+    Stream<QuizzView> streamAllViews();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.TagLink(q.id, t.id, t.tag) from Quizz q join q.tags t order by q.id")
+    Stream<TagLink> streamAllTagLinks();
 }
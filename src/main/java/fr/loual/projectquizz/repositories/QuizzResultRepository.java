@@ -0,0 +1,30 @@
+package fr.loual.projectquizz.repositories;
+
+import fr.loual.projectquizz.model.dtos.BestResult;
+import fr.loual.projectquizz.model.entities.QuizzResult;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@Repository
+public interface QuizzResultRepository extends CrudRepository<QuizzResult, Long> {
+
+    /**
+     * best score of each player on each quizz, dated by the first play reaching it as the live ranking does
+     * @return one result per quizz and player, by quizz, read through a forward-only cursor in a transaction
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new fr.loual.projectquizz.model.dtos.BestResult(r.quizz.id, u.id, u.username, r.score, min(r.finishedAt)) " +
+            "from QuizzResult r join r.user u " +
+            "where r.score = (select max(b.score) from QuizzResult b where b.quizz = r.quizz and b.user = r.user) " +
+            "group by r.quizz.id, u.id, u.username, r.score order by r.quizz.id")
+    Stream<BestResult> streamBestResults();
+
+}
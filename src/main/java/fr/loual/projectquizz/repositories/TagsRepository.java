@@ -5,6 +5,12 @@ import fr.loual.projectquizz.model.entities.Tags;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TagsRepository extends CrudRepository<Tags, Long> {
+
+    List<Tags> findByTagIn(Collection<String> tags);
+
 }
@@ -0,0 +1,121 @@
+package fr.loual.projectquizz.rooms;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.play.QuizzSnapshot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A live quizz: the host moves from question to question, every event is pushed to all the subscribers.
+ * Answers are queued without locking and graded in one pass by the host when moving on; the position
+ * and the scores are only changed by the host, under the room monitor.
+ */
+final class Room {
+
+    private final String id;
+    private final String host;
+    private final QuizzSnapshot quizz;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Answer> answers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingAnswers = new AtomicInteger();
+    private final Map<String, Integer> scores = new HashMap<>();
+    private int position = -1;
+    private volatile byte[] currentFrame;
+    private volatile long lastActivityNanos;
+
+    Room(String id, String host, QuizzSnapshot quizz) {
+        this.id = id;
+        this.host = host;
+        this.quizz = quizz;
+        this.lastActivityNanos = System.nanoTime();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    QuizzSnapshot getQuizz() {
+        return quizz;
+    }
+
+    Map<String, Subscriber> getSubscribers() {
+        return subscribers;
+    }
+
+    /** last question published, sent to the subscribers joining in the middle of the quizz */
+    byte[] getCurrentFrame() {
+        return currentFrame;
+    }
+
+    void setCurrentFrame(byte[] currentFrame) {
+        this.currentFrame = currentFrame;
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    void touch() {
+        lastActivityNanos = System.nanoTime();
+    }
+
+    /**
+     * queue an answer
+     * @return false if too many answers are already waiting
+     */
+    boolean offerAnswer(String username, PostedAnswer answer, int maxPending) {
+        if (pendingAnswers.incrementAndGet() > maxPending) {
+            pendingAnswers.decrementAndGet();
+            return false;
+        }
+        answers.offer(new Answer(username, answer));
+        return true;
+    }
+
+    /**
+     * grade the queued answers of the current question, the first answer of each participant counts
+     * and the answers to other questions are discarded, then move to the next question
+     * @return the new position, the quizz size once all the questions have been asked
+     */
+    int advance() {
+        Long questionId = position >= 0 && position < quizz.size() ? quizz.getQuestions().get(position).getId() : null;
+        Set<String> answered = new HashSet<>();
+        Answer answer;
+        while ((answer = answers.poll()) != null) {
+            pendingAnswers.decrementAndGet();
+            if (questionId != null && questionId.equals(answer.answer.getQuestionId()) && answered.add(answer.username)) {
+                int points = quizz.matcher(position).matches(answer.answer) ? 1 : 0;
+                scores.merge(answer.username, points, Integer::sum);
+            }
+        }
+        position = Math.min(position + 1, quizz.size());
+        touch();
+        return position;
+    }
+
+    Map<String, Integer> getScores() {
+        return scores;
+    }
+
+    private static final class Answer {
+
+        private final String username;
+        private final PostedAnswer answer;
+
+        private Answer(String username, PostedAnswer answer) {
+            this.username = username;
+            this.answer = answer;
+        }
+    }
+
+}
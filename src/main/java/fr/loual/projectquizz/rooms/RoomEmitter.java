@@ -0,0 +1,34 @@
+package fr.loual.projectquizz.rooms;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+
+/**
+ * Server-sent events stream written from frames already encoded, so an event is serialized once for all
+ * the subscribers of a room instead of once per subscriber
+ */
+public class RoomEmitter extends ResponseBodyEmitter {
+
+    public RoomEmitter(Long timeout) {
+        super(timeout);
+    }
+
+    @Override
+    protected void extendResponse(ServerHttpResponse outputMessage) {
+        super.extendResponse(outputMessage);
+        outputMessage.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+    }
+
+    /**
+     * write a complete frame, "event:" and "data:" lines included
+     * @param frame the encoded frame
+     * @throws IOException if the client is gone
+     */
+    public void sendFrame(byte[] frame) throws IOException {
+        send(frame, MediaType.TEXT_EVENT_STREAM);
+    }
+
+}
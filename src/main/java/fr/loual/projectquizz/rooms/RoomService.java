@@ -0,0 +1,303 @@
+package fr.loual.projectquizz.rooms;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.exceptions.RoomNotFoundException;
+import fr.loual.projectquizz.exceptions.RoomUnavailableException;
+import fr.loual.projectquizz.model.dtos.LeaderboardRow;
+import fr.loual.projectquizz.model.dtos.PlayQuestion;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.RoomQuestion;
+import fr.loual.projectquizz.model.dtos.RoomScores;
+import fr.loual.projectquizz.play.QuizzSnapshot;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live quizz rooms over server-sent events. Each event is serialized once into a frame shared by all the
+ * subscribers, publishing only buffers the frame per subscriber, and a small sender pool writes the
+ * buffers. Slow subscribers lose their oldest events or are disconnected, depending on the policy.
+ */
+@Slf4j
+@Service
+public class RoomService implements MeterBinder, DisposableBean {
+
+    private static final String EVENT_QUESTION = "question";
+    private static final String EVENT_SCORES = "scores";
+    private static final String EVENT_END = "end";
+    /** comment line sent on subscription, so the response starts at once even before the first question */
+    private static final byte[] JOINED = ": joined\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final QuizzSnapshotCache snapshotCache;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder subscribersCount = new LongAdder();
+    private final int maxRooms;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final SlowConsumerPolicy policy;
+    private final int maxPendingAnswers;
+    private final long emitterTimeoutMillis;
+    private final long idleNanos;
+    private Timer publishTimer;
+
+    public RoomService(QuizzSnapshotCache snapshotCache, ObjectMapper objectMapper,
+                       @Value("${fr.loual.rooms.maxRooms:100}") int maxRooms,
+                       @Value("${fr.loual.rooms.maxSubscribers:5000}") int maxSubscribers,
+                       @Value("${fr.loual.rooms.bufferSize:16}") int bufferSize,
+                       @Value("${fr.loual.rooms.slowConsumerPolicy:DROP_OLDEST}") SlowConsumerPolicy policy,
+                       @Value("${fr.loual.rooms.maxPendingAnswers:20000}") int maxPendingAnswers,
+                       @Value("${fr.loual.rooms.senderThreads:8}") int senderThreads,
+                       @Value("${fr.loual.rooms.emitterTimeoutMinutes:60}") long emitterTimeoutMinutes,
+                       @Value("${fr.loual.rooms.idleMinutes:60}") long idleMinutes) {
+        this.snapshotCache = snapshotCache;
+        this.objectMapper = objectMapper;
+        this.maxRooms = maxRooms;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+        this.maxPendingAnswers = maxPendingAnswers;
+        this.emitterTimeoutMillis = TimeUnit.MINUTES.toMillis(emitterTimeoutMinutes);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "room-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * open a room on a quizz
+     * @param quizzId the quizz id
+     * @param host the user driving the room
+     * @return the room id, or empty if the quizz does not exist
+     */
+    public Optional<String> open(Long quizzId, String host) {
+        QuizzSnapshot quizz = snapshotCache.get(quizzId);
+        if (quizz == null) {
+            return Optional.empty();
+        }
+        if (rooms.size() >= maxRooms) {
+            throw new RoomUnavailableException("Too many live rooms, retry later");
+        }
+        Room room = new Room(UUID.randomUUID().toString(), host, quizz);
+        rooms.put(room.getId(), room);
+        log.info("room {} opened on quizz {} by {}", room.getId(), quizzId, host);
+        return Optional.of(room.getId());
+    }
+
+    /**
+     * subscribe to the events of a room, the current question is sent first
+     * @param roomId the room id
+     * @param username the participant
+     * @return the event stream
+     */
+    public RoomEmitter subscribe(String roomId, String username) {
+        Room room = room(roomId);
+        if (room.getSubscribers().size() >= maxSubscribers) {
+            throw new RoomUnavailableException("The room is full");
+        }
+        RoomEmitter emitter = new RoomEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(UUID.randomUUID().toString(), username, emitter, bufferSize, policy,
+                sender, dropped);
+        Runnable remove = () -> {
+            if (room.getSubscribers().remove(subscriber.getId()) != null) {
+                subscribersCount.decrement();
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        // sent before the handler returns, the first frame is held by the emitter as an early send and written
+        // once Spring MVC has set up the response; sent before the subscriber is registered, it comes first
+        byte[] current = room.getCurrentFrame();
+        try {
+            emitter.sendFrame(current != null ? current : JOINED);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start the event stream", e);
+        }
+        room.getSubscribers().put(subscriber.getId(), subscriber);
+        subscribersCount.increment();
+        if (rooms.get(roomId) != room) {
+            // closed meanwhile, after its subscribers were closed
+            remove.run();
+            subscriber.close();
+            return emitter;
+        }
+        byte[] published = room.getCurrentFrame();
+        if (published != current) {
+            subscriber.offer(published);
+        }
+        return emitter;
+    }
+
+    /**
+     * queue an answer to the current question, graded when the host moves on
+     * @param roomId the room id
+     * @param username the participant
+     * @param answer the answer
+     */
+    public void answer(String roomId, String username, PostedAnswer answer) {
+        Room room = room(roomId);
+        if (!room.offerAnswer(username, answer, maxPendingAnswers)) {
+            throw new RoomUnavailableException("Too many answers waiting, retry later");
+        }
+    }
+
+    /**
+     * grade the answers to the current question, publish the scores then the next question,
+     * or the final scores and close the room after the last question
+     * @param roomId the room id
+     * @param username the user asking, must be the host
+     * @return the number of subscribers the events were published to
+     */
+    public int next(String roomId, String username) {
+        Room room = room(roomId);
+        if (!room.getHost().equals(username)) {
+            throw new AccessDeniedException("Only the host can move the room forward");
+        }
+        synchronized (room) {
+            boolean started = room.getCurrentFrame() != null;
+            int position = room.advance();
+            QuizzSnapshot quizz = room.getQuizz();
+            boolean finished = position >= quizz.size();
+            int reached = 0;
+            if (started || finished) {
+                reached = publish(room, frame(finished ? EVENT_END : EVENT_SCORES, scores(room, position, finished)));
+            }
+            if (finished) {
+                close(room);
+                return reached;
+            }
+            QuizzSnapshot.QuestionSnapshot question = quizz.getQuestions().get(position);
+            List<PlayQuestion.Choice> choices = new ArrayList<>(question.getOptions().size());
+            if (question.isChoiceType()) {
+                question.getOptions().forEach(option -> choices.add(new PlayQuestion.Choice(option.getId(), option.getText())));
+            }
+            byte[] frame = frame(EVENT_QUESTION, new RoomQuestion(room.getId(), position, quizz.size(), question.getId(),
+                    question.getText(), question.isChoiceType(), question.isFreeResponse(), choices));
+            room.setCurrentFrame(frame);
+            return publish(room, frame);
+        }
+    }
+
+    /**
+     * close the rooms without activity for too long
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void closeIdleRooms() {
+        long now = System.nanoTime();
+        for (Room room : rooms.values()) {
+            if (now - room.getLastActivityNanos() > idleNanos) {
+                log.info("room {} closed after inactivity", room.getId());
+                close(room);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        publishTimer = Timer.builder("rooms.publish").description("time to hand an event to all the subscribers of a room")
+                .register(registry);
+        Gauge.builder("rooms.active", rooms, Map::size).register(registry);
+        Gauge.builder("rooms.subscribers", subscribersCount, LongAdder::sum).register(registry);
+        FunctionCounter.builder("rooms.frames.dropped", dropped, LongAdder::sum).register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        rooms.values().forEach(this::close);
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private Room room(String roomId) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            throw new RoomNotFoundException(roomId);
+        }
+        return room;
+    }
+
+    private int publish(Room room, byte[] frame) {
+        long start = System.nanoTime();
+        int reached = 0;
+        for (Subscriber subscriber : room.getSubscribers().values()) {
+            if (subscriber.offer(frame)) {
+                reached++;
+            }
+        }
+        if (publishTimer != null) {
+            publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return reached;
+    }
+
+    private void close(Room room) {
+        if (rooms.remove(room.getId(), room)) {
+            room.getSubscribers().values().forEach(Subscriber::close);
+        }
+    }
+
+    private static RoomScores scores(Room room, int answered, boolean finished) {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(room.getScores().entrySet());
+        sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<LeaderboardRow> ranking = new ArrayList<>(sorted.size());
+        int rank = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i == 0 || !sorted.get(i).getValue().equals(sorted.get(i - 1).getValue())) {
+                rank = i + 1;
+            }
+            ranking.add(new LeaderboardRow(rank, sorted.get(i).getKey(), sorted.get(i).getValue()));
+        }
+        return new RoomScores(room.getId(), answered, room.getQuizz().size(), finished, ranking);
+    }
+
+    /**
+     * encode a whole server-sent event, the json written by the mapper holds on a single data line
+     */
+    private byte[] frame(String event, Object data) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(data);
+            byte[] head = ("event:" + event + "\ndata:").getBytes(StandardCharsets.US_ASCII);
+            byte[] frame = new byte[head.length + json.length + 2];
+            System.arraycopy(head, 0, frame, 0, head.length);
+            System.arraycopy(json, 0, frame, head.length, json.length);
+            frame[frame.length - 2] = '\n';
+            frame[frame.length - 1] = '\n';
+            return frame;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize the " + event + " event", e);
+        }
+    }
+
+}
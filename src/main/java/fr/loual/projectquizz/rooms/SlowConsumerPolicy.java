@@ -0,0 +1,13 @@
+package fr.loual.projectquizz.rooms;
+
+/**
+ * What happens to a subscriber whose buffer is full when a new event is published
+ */
+public enum SlowConsumerPolicy {
+
+    /** the oldest buffered event is dropped to make room, the subscriber stays connected */
+    DROP_OLDEST,
+    /** the subscriber is disconnected, it can subscribe again to get the current question */
+    DISCONNECT
+
+}
@@ -0,0 +1,134 @@
+package fr.loual.projectquizz.rooms;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client connected to a room. Publishing only puts the frame in the bounded buffer of the subscriber,
+ * the writes happen on the sender pool, at most one drain running per subscriber, so a slow client never
+ * blocks the publisher nor the other subscribers.
+ */
+@Slf4j
+final class Subscriber {
+
+    private final String id;
+    private final String username;
+    private final RoomEmitter emitter;
+    private final ArrayBlockingQueue<byte[]> buffer;
+    private final SlowConsumerPolicy policy;
+    private final Executor sender;
+    private final LongAdder dropped;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean ending;
+
+    Subscriber(String id, String username, RoomEmitter emitter, int bufferSize, SlowConsumerPolicy policy,
+               Executor sender, LongAdder dropped) {
+        this.id = id;
+        this.username = username;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.policy = policy;
+        this.sender = sender;
+        this.dropped = dropped;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * buffer a frame and schedule its write
+     * @param frame the encoded frame
+     * @return false if the subscriber is, or has just been, disconnected
+     */
+    boolean offer(byte[] frame) {
+        if (closed.get()) {
+            return false;
+        }
+        while (!buffer.offer(frame)) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                dropped.increment();
+                disconnect();
+                return false;
+            }
+            if (buffer.poll() != null) {
+                dropped.increment();
+            }
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * end the stream once the buffered frames are written
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            ending = true;
+            schedule();
+        }
+    }
+
+    /**
+     * end the stream at once, dropping the buffered frames. The emitter is completed from the sender pool
+     * as a write may be in progress on it
+     */
+    void disconnect() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            complete();
+        }
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            byte[] frame;
+            while ((frame = buffer.poll()) != null) {
+                emitter.sendFrame(frame);
+            }
+        } catch (Exception e) {
+            log.debug("subscriber {} disconnected: {}", id, e.getMessage());
+            closed.set(true);
+            buffer.clear();
+            // ends the request, its completion callback removes the subscriber from the room
+            if (completed.compareAndSet(false, true)) {
+                emitter.completeWithError(e);
+            }
+        } finally {
+            draining.set(false);
+        }
+        if (!buffer.isEmpty()) {
+            // a frame offered after the last poll but before the flag was released
+            schedule();
+        } else if (ending) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            sender.execute(emitter::complete);
+        }
+    }
+
+}
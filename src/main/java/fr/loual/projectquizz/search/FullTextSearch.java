@@ -0,0 +1,383 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.dtos.SearchHit;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.fr.FrenchAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index of the quizz descriptions and commentaries and of the question texts.
+ * Each text is indexed twice, stemmed in French and in English, and searched on both fields with BM25.
+ * Documents are updated by the quizz and question services, reads go through a near real time searcher.
+ * Commits to the index directory are batched on a background thread, so a restart reuses the index.
+ * Each commit records the state of the quizz and question tables (counts, ids and versions) read just before it,
+ * the index is rebuilt at startup when the recorded state is not the current one: writes lost with an
+ * uncommitted index, or applied while the application was down, are never served stale.
+ */
+@Slf4j
+@Component
+public class FullTextSearch implements MeterBinder, DisposableBean {
+
+    public static final String QUIZZ = "quizz";
+    public static final String QUESTION = "question";
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String TEXT = "text";
+    private static final String FRENCH = "fr";
+    private static final String ENGLISH = "en";
+    private static final String DATABASE_STATE = "databaseState";
+
+    private final QuizzRepository quizzRepository;
+    private final QuestionRepository questionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Directory directory;
+    private final Analyzer analyzer;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean pendingCommit = new AtomicBoolean();
+
+    public FullTextSearch(QuizzRepository quizzRepository, QuestionRepository questionRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${fr.loual.search.directory:data/search-index}") String indexDirectory,
+                          @Value("${fr.loual.search.commitSeconds:5}") long commitSeconds) throws IOException {
+        this.quizzRepository = quizzRepository;
+        this.questionRepository = questionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.directory = indexDirectory.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(indexDirectory));
+        this.analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(),
+                Map.of(FRENCH, new FrenchAnalyzer(), ENGLISH, new EnglishAnalyzer()));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setSimilarity(new BM25Similarity())
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setSimilarity(new BM25Similarity());
+                return searcher;
+            }
+        });
+        committer.scheduleWithFixedDelay(this::commitIfPending, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * reuse the persisted index if it was committed with the current state of the database, rebuild it otherwise
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkIndex() throws IOException {
+        String state = databaseState();
+        if (state.equals(committedState())) {
+            log.info("search index reused : {} documents", writer.getDocStats().numDocs);
+            return;
+        }
+        reindex();
+    }
+
+    /**
+     * rebuild the whole index from the database, read through forward-only cursors
+     * @throws IOException if the index can not be written
+     */
+    public void reindex() throws IOException {
+        long start = System.nanoTime();
+        // read before the rows, a write committed meanwhile makes the next startup rebuild again
+        String state = databaseState();
+        writer.deleteAll();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<QuizzView> quizzes = quizzRepository.streamAllViews();
+                     Stream<QuestionView> questions = questionRepository.streamAllViews()) {
+                    quizzes.forEach(quizz -> add(document(QUIZZ, quizz.getId(), text(quizz.getDescription(), quizz.getCommentary()))));
+                    questions.forEach(question -> add(document(QUESTION, question.getId(), question.getQuizzQuestion())));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        commit(state);
+        searcherManager.maybeRefreshBlocking();
+        log.info("search index rebuilt in {} ms : {} documents", (System.nanoTime() - start) / 1_000_000, writer.getDocStats().numDocs);
+    }
+
+    /**
+     * index a saved quizz, once its transaction is committed
+     * @param quizz the quizz
+     */
+    public void indexQuizz(Quizz quizz) {
+        Long id = quizz.getId();
+        String text = text(quizz.getDescription(), quizz.getCommentary());
+        afterCommit(() -> update(QUIZZ, id, text));
+    }
+
+    /**
+     * index a saved question, once its transaction is committed
+     * @param question the question
+     */
+    public void indexQuestion(Question question) {
+        Long id = question.getId();
+        String text = question.getQuizzQuestion();
+        afterCommit(() -> update(QUESTION, id, text));
+    }
+
+    /**
+     * index saved quizzes and questions in one pass once their transaction is committed,
+     * the searcher being refreshed once for all of them
+     * @param quizzes the quizzes
+     * @param questions the questions
+     */
+    public void indexAll(List<Quizz> quizzes, List<Question> questions) {
+        List<Document> documents = new ArrayList<>(quizzes.size() + questions.size());
+        quizzes.forEach(quizz -> documents.add(document(QUIZZ, quizz.getId(), text(quizz.getDescription(), quizz.getCommentary()))));
+        questions.forEach(question -> documents.add(document(QUESTION, question.getId(), question.getQuizzQuestion())));
+        afterCommit(() -> update(documents));
+    }
+
+    public void removeQuizz(Long quizzId) {
+        afterCommit(() -> delete(QUIZZ, quizzId));
+    }
+
+    public void removeQuestion(Long questionId) {
+        afterCommit(() -> delete(QUESTION, questionId));
+    }
+
+    /**
+     * search the quizzes and questions
+     * @param text the user query, in French or English
+     * @param type quizz or question, null for both
+     * @param size the maximum number of hits
+     * @return the hits, best score first
+     * @throws IllegalArgumentException if the query can not be parsed
+     */
+    public List<SearchHit> search(String text, String type, int size) {
+        Query query = query(text, type);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, size);
+                List<SearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    Document document = searcher.doc(scoreDoc.doc);
+                    hits.add(new SearchHit(document.get(TYPE), document.getField(ID).numericValue().longValue(),
+                            scoreDoc.score, document.get(TEXT)));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.index.documents", writer, indexWriter -> indexWriter.getDocStats().numDocs).register(registry);
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        // a running commit is awaited, interrupting it would close the index files under it
+        committer.shutdown();
+        committer.awaitTermination(30, TimeUnit.SECONDS);
+        commitIfPending();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Query query(String text, String type) {
+        Query parsed;
+        try {
+            MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{FRENCH, ENGLISH}, analyzer);
+            parsed = parser.parse(QueryParser.escape(text));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query", e);
+        }
+        if (type == null) {
+            return parsed;
+        }
+        return new BooleanQuery.Builder()
+                .add(parsed, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    private void update(String type, Long id, String text) {
+        try {
+            writer.updateDocument(new Term(KEY, key(type, id)), document(type, id, text));
+            changed();
+        } catch (IOException e) {
+            log.error("unable to index {} {}", type, id, e);
+        }
+    }
+
+    private void update(List<Document> documents) {
+        try {
+            for (Document document : documents) {
+                writer.updateDocument(new Term(KEY, document.get(KEY)), document);
+            }
+            changed();
+        } catch (IOException e) {
+            log.error("unable to index {} documents", documents.size(), e);
+        }
+    }
+
+    private void delete(String type, Long id) {
+        try {
+            writer.deleteDocuments(new Term(KEY, key(type, id)));
+            changed();
+        } catch (IOException e) {
+            log.error("unable to remove {} {} from the index", type, id, e);
+        }
+    }
+
+    private void changed() throws IOException {
+        pendingCommit.set(true);
+        searcherManager.maybeRefresh();
+    }
+
+    private void commitIfPending() {
+        if (pendingCommit.getAndSet(false)) {
+            try {
+                // read before the commit, the changes of a write committed in between are applied after this read
+                commit(databaseState());
+            } catch (IOException | RuntimeException e) {
+                pendingCommit.set(true);
+                log.error("unable to commit the search index", e);
+            }
+        }
+    }
+
+    private void add(Document document) {
+        try {
+            writer.addDocument(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void commit(String state) throws IOException {
+        writer.setLiveCommitData(Map.of(DATABASE_STATE, state).entrySet());
+        writer.commit();
+    }
+
+    private String databaseState() {
+        return QUIZZ + '=' + quizzRepository.findTableState().toMarker()
+                + ',' + QUESTION + '=' + questionRepository.findTableState().toMarker();
+    }
+
+    private String committedState() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data) {
+                if (DATABASE_STATE.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Document document(String type, Long id, String text) {
+        String value = text == null ? "" : text;
+        Document document = new Document();
+        document.add(new StringField(KEY, key(type, id), Field.Store.NO));
+        document.add(new StringField(TYPE, type, Field.Store.YES));
+        document.add(new StoredField(ID, id));
+        document.add(new StoredField(TEXT, value));
+        document.add(new TextField(FRENCH, value, Field.Store.NO));
+        document.add(new TextField(ENGLISH, value, Field.Store.NO));
+        return document;
+    }
+
+    private static String text(String description, String commentary) {
+        if (commentary == null) {
+            return description;
+        }
+        return description == null ? commentary : description + "\n" + commentary;
+    }
+
+    private static String key(String type, Long id) {
+        return type + ':' + id;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+}
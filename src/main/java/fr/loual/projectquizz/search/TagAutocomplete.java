@@ -0,0 +1,201 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.model.dtos.TagSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prefix autocomplete of the tags, ranked by usage. Lookups read an immutable snapshot : the tags sorted
+ * by name, a binary search giving the range of a prefix, and a sparse table giving the most used tag of
+ * any range in O(1), so the top k of a prefix costs O(log n + k log k) whatever the size of the range.
+ * When the {@link TagIndex} changes, a new snapshot is built on a background thread, coalescing the
+ * changes made meanwhile, and lookups keep reading the previous one.
+ */
+@Slf4j
+@Component
+public class TagAutocomplete implements MeterBinder, DisposableBean {
+
+    private final TagIndex tagIndex;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tag-autocomplete");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(-1L, List.of());
+    private Timer lookups;
+
+    public TagAutocomplete(TagIndex tagIndex) {
+        this.tagIndex = tagIndex;
+    }
+
+    /**
+     * build the first snapshot once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long version = tagIndex.version();
+        snapshot = new Snapshot(version, tagIndex.usages());
+    }
+
+    /**
+     * the most used tags starting with a prefix
+     * @param prefix the typed text, case insensitive
+     * @param limit the maximum number of suggestions
+     * @return the suggestions, most used first
+     */
+    public List<TagSuggestion> suggest(String prefix, int limit) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        if (current.version != tagIndex.version()) {
+            scheduleRebuild();
+        }
+        List<TagSuggestion> suggestions = current.top(normalize(prefix), limit);
+        if (lookups != null) {
+            lookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return suggestions;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lookups = Timer.builder("tags.autocomplete.lookups").publishPercentiles(0.5, 0.99).register(registry);
+        Gauge.builder("tags.autocomplete.size", this, autocomplete -> autocomplete.snapshot.keys.length).register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuilding.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("tag autocomplete rebuild failed", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * immutable sorted view of the tags
+     */
+    private static final class Snapshot {
+
+        private final long version;
+        private final String[] keys;
+        private final TagSuggestion[] tags;
+        // sparse[j][i] is the index of the most used tag in [i, i + 2^j)
+        private final int[][] sparse;
+
+        private Snapshot(long version, List<TagSuggestion> usages) {
+            this.version = version;
+            TagSuggestion[] sorted = usages.toArray(new TagSuggestion[0]);
+            Arrays.sort(sorted, Comparator.comparing(tag -> normalize(tag.getTag())));
+            this.tags = sorted;
+            this.keys = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                keys[i] = normalize(sorted[i].getTag());
+            }
+            int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(sorted.length));
+            this.sparse = new int[levels][];
+            sparse[0] = new int[sorted.length];
+            Arrays.setAll(sparse[0], i -> i);
+            for (int j = 1; j < levels; j++) {
+                int half = 1 << (j - 1);
+                int[] previous = sparse[j - 1];
+                int[] level = new int[Math.max(0, sorted.length - (1 << j) + 1)];
+                for (int i = 0; i < level.length; i++) {
+                    level[i] = best(previous[i], previous[i + half]);
+                }
+                sparse[j] = level;
+            }
+        }
+
+        private List<TagSuggestion> top(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            List<TagSuggestion> result = new ArrayList<>(Math.min(limit, Math.max(0, to - from)));
+            if (from >= to || limit <= 0) {
+                return result;
+            }
+            // ranges ordered by their most used tag, each pop splits a range around its best tag
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(b[2], a[2]));
+            ranges.add(new int[]{from, to, max(from, to)});
+            while (result.size() < limit && !ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                result.add(tags[best]);
+                if (range[0] < best) {
+                    ranges.add(new int[]{range[0], best, max(range[0], best)});
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[]{best + 1, range[1], max(best + 1, range[1])});
+                }
+            }
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * index of the most used tag in [from, to)
+         */
+        private int max(int from, int to) {
+            int level = 31 - Integer.numberOfLeadingZeros(to - from);
+            return best(sparse[level][from], sparse[level][to - (1 << level)]);
+        }
+
+        private int best(int a, int b) {
+            return compare(a, b) >= 0 ? a : b;
+        }
+
+        /**
+         * higher usage first, then alphabetical order
+         */
+        private int compare(int a, int b) {
+            int byUsage = Integer.compare(tags[a].getUsage(), tags[b].getUsage());
+            return byUsage != 0 ? byUsage : Integer.compare(b, a);
+        }
+    }
+
+}
@@ -0,0 +1,512 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.model.dtos.TagLink;
+import fr.loual.projectquizz.model.dtos.TagSuggestion;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the tags, answering "tag containing a term" searches without scanning the join tables.
+ * Each tag is split in trigrams, a search intersects the tags of the trigrams of the term then checks the
+ * candidates. Every tag has the sorted ids of its quizzes and questions, merged to serve keyset pages.
+ * Tags are kept by id, as "Java" and "java" are distinct tags, the names are lower cased only to be searched.
+ * Built once the application is ready and kept in sync by {@link TagIndexEntityListener}, all updates are
+ * idempotent so an event replayed over a fresh build is harmless.
+ */
+@Slf4j
+@Component
+public class TagIndex implements MeterBinder {
+
+    private static final int GRAM = 3;
+
+    private final TagsRepository tagsRepository;
+    private final QuizzRepository quizzRepository;
+    private final QuestionRepository questionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> tags = new HashMap<>();
+    private final Map<String, Set<Long>> idsByName = new HashMap<>();
+    private final Map<Long, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, Set<Long>> quizzTags = new HashMap<>();
+    private final Map<Long, Set<Long>> questionTags = new HashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean built;
+
+    public TagIndex(TagsRepository tagsRepository, QuizzRepository quizzRepository, QuestionRepository questionRepository,
+                    PlatformTransactionManager transactionManager) {
+        this.tagsRepository = tagsRepository;
+        this.quizzRepository = quizzRepository;
+        this.questionRepository = questionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * build the index once the application is ready, unless a lookup already did
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ensureBuilt();
+    }
+
+    /**
+     * (re)build the whole index from the database, the links being read through forward-only cursors
+     */
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            tags.clear();
+            idsByName.clear();
+            trigrams.clear();
+            quizzTags.clear();
+            questionTags.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                tagsRepository.findAll().forEach(tag -> addTag(tag.getId(), tag.getTag()));
+                try (Stream<TagLink> quizzLinks = quizzRepository.streamAllTagLinks();
+                     Stream<TagLink> questionLinks = questionRepository.streamAllTagLinks()) {
+                    quizzLinks.forEach(link -> link(Kind.QUIZZ, link.getOwnerId(), link.getTagId(), link.getTag()));
+                    questionLinks.forEach(link -> link(Kind.QUESTION, link.getOwnerId(), link.getTagId(), link.getTag()));
+                }
+            });
+            built = true;
+            version.incrementAndGet();
+            log.info("tag index built in {} ms : {} tags, {} quizzes, {} questions, ~{} bytes",
+                    (System.nanoTime() - start) / 1_000_000, tags.size(), quizzTags.size(), questionTags.size(), memoryBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ids of the quizzes having a tag containing a term, after a given id
+     * @param term the searched part of a tag, case insensitive
+     * @param after the id after which the ids start
+     * @param limit the maximum number of ids
+     * @return the sorted ids
+     */
+    public long[] searchQuizzes(String term, long after, int limit) {
+        return search(Kind.QUIZZ, term, after, limit);
+    }
+
+    /**
+     * ids of the questions having a tag containing a term, after a given id
+     * @param term the searched part of a tag, case insensitive
+     * @param after the id after which the ids start
+     * @param limit the maximum number of ids
+     * @return the sorted ids
+     */
+    public long[] searchQuestions(String term, long after, int limit) {
+        return search(Kind.QUESTION, term, after, limit);
+    }
+
+    /**
+     * the tags containing a term
+     * @param term the searched part of a tag, case insensitive
+     * @return the matching tags
+     */
+    public List<String> matchingTags(String term) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            List<String> names = new ArrayList<>();
+            matching(normalize(term)).forEach(postings -> names.add(postings.display));
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * a tag was created or renamed
+     * @param id the tag id
+     * @param name the tag
+     */
+    public void tagSaved(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            Postings postings = tags.get(id);
+            if (postings == null) {
+                addTag(id, name);
+            } else if (!postings.display.equals(name)) {
+                unindexName(postings.name, id);
+                postings.display = name;
+                postings.name = normalize(name);
+                indexName(postings.name, id);
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * a tag was deleted
+     * @param id the tag id
+     */
+    public void tagRemoved(Long id) {
+        lock.writeLock().lock();
+        try {
+            Postings postings = tags.remove(id);
+            if (postings != null) {
+                unindexName(postings.name, id);
+                quizzTags.values().forEach(ids -> ids.remove(id));
+                questionTags.values().forEach(ids -> ids.remove(id));
+                version.incrementAndGet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * the tags of a quizz were saved
+     * @param quizzId the quizz id
+     * @param names its current tags by id
+     */
+    public void quizzTagsChanged(Long quizzId, Map<Long, String> names) {
+        replaceLinks(Kind.QUIZZ, quizzId, names);
+    }
+
+    /**
+     * the tags of a question were saved
+     * @param questionId the question id
+     * @param names its current tags by id
+     */
+    public void questionTagsChanged(Long questionId, Map<Long, String> names) {
+        replaceLinks(Kind.QUESTION, questionId, names);
+    }
+
+    public void quizzRemoved(Long quizzId) {
+        replaceLinks(Kind.QUIZZ, quizzId, Map.of());
+    }
+
+    public void questionRemoved(Long questionId) {
+        replaceLinks(Kind.QUESTION, questionId, Map.of());
+    }
+
+    /**
+     * rough estimate of the heap used by the index
+     * @return a size in bytes
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            // object headers, references and boxed keys rounded to 48 bytes per map entry
+            long bytes = 0L;
+            for (Postings postings : tags.values()) {
+                bytes += 48L + 2 * (40L + 2L * postings.name.length()) + postings.bytes();
+            }
+            for (Set<Long> ids : idsByName.values()) {
+                bytes += 48L + 16L + 32L * ids.size();
+            }
+            for (Set<String> names : trigrams.values()) {
+                bytes += 48L + 16L + 32L * names.size();
+            }
+            for (Set<Long> ids : quizzTags.values()) {
+                bytes += 48L + 16L + 32L * ids.size();
+            }
+            for (Set<Long> ids : questionTags.values()) {
+                bytes += 48L + 16L + 32L * ids.size();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * incremented by every change, telling the derived structures when to rebuild
+     * @return the current version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * every tag with the number of quizzes and questions using it
+     * @return the tags, unordered
+     */
+    public List<TagSuggestion> usages() {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            List<TagSuggestion> usages = new ArrayList<>(tags.size());
+            for (Postings postings : tags.values()) {
+                usages.add(new TagSuggestion(postings.display, postings.quizzes.size + postings.questions.size));
+            }
+            return usages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tags.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tags.index.memory", this, TagIndex::memoryBytes).baseUnit("bytes").register(registry);
+        Gauge.builder("tags.index.tags", this, TagIndex::size).register(registry);
+    }
+
+    private long[] search(Kind kind, String term, long after, int limit) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            List<Postings> matches = matching(normalize(term));
+            List<PostingList> lists = new ArrayList<>(matches.size());
+            for (Postings postings : matches) {
+                PostingList list = postings.get(kind);
+                if (list.size > 0) {
+                    lists.add(list);
+                }
+            }
+            return merge(lists, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    build();
+                }
+            }
+        }
+    }
+
+    private List<Postings> matching(String term) {
+        List<Postings> matches = new ArrayList<>();
+        if (term.length() < GRAM) {
+            for (Postings postings : tags.values()) {
+                if (postings.name.contains(term)) {
+                    matches.add(postings);
+                }
+            }
+            return matches;
+        }
+        // smallest trigram set first, the intersection can only shrink
+        Set<String> candidates = null;
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            Set<String> names = trigrams.get(trigram(term, i));
+            if (names == null) {
+                return List.of();
+            }
+            if (candidates == null || names.size() < candidates.size()) {
+                candidates = names;
+            }
+        }
+        for (String name : candidates) {
+            if (name.contains(term)) {
+                idsByName.get(name).forEach(id -> matches.add(tags.get(id)));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * k-way merge of the sorted posting lists, deduplicated, starting after a given id
+     */
+    private static long[] merge(List<PostingList> lists, long after, int limit) {
+        int[] positions = new int[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            positions[i] = lists.get(i).firstAfter(after);
+        }
+        long[] result = new long[limit];
+        int count = 0;
+        while (count < limit) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < lists.size(); i++) {
+                PostingList list = lists.get(i);
+                if (positions[i] < list.size && list.ids[positions[i]] < min) {
+                    min = list.ids[positions[i]];
+                }
+            }
+            if (min == Long.MAX_VALUE) {
+                break;
+            }
+            result[count++] = min;
+            for (int i = 0; i < lists.size(); i++) {
+                PostingList list = lists.get(i);
+                if (positions[i] < list.size && list.ids[positions[i]] == min) {
+                    positions[i]++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void replaceLinks(Kind kind, Long ownerId, Map<Long, String> names) {
+        lock.writeLock().lock();
+        try {
+            Map<Long, Set<Long>> owners = kind == Kind.QUIZZ ? quizzTags : questionTags;
+            Set<Long> previous = owners.getOrDefault(ownerId, Set.of());
+            for (Long tagId : previous) {
+                if (!names.containsKey(tagId) && tags.containsKey(tagId)) {
+                    tags.get(tagId).get(kind).remove(ownerId);
+                }
+            }
+            owners.remove(ownerId);
+            names.forEach((tagId, name) -> link(kind, ownerId, tagId, name));
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Kind kind, Long ownerId, Long tagId, String tag) {
+        // the tag event may come after the link one
+        addTag(tagId, tag).get(kind).add(ownerId);
+        (kind == Kind.QUIZZ ? quizzTags : questionTags).computeIfAbsent(ownerId, id -> new HashSet<>(4)).add(tagId);
+    }
+
+    private Postings addTag(Long id, String tag) {
+        Postings postings = tags.get(id);
+        if (postings == null) {
+            postings = new Postings(tag);
+            tags.put(id, postings);
+            indexName(postings.name, id);
+        }
+        return postings;
+    }
+
+    /**
+     * the lower cased name is shared by the tags differing only by case, its trigrams live as long as one of them
+     */
+    private void indexName(String name, Long id) {
+        Set<Long> ids = idsByName.get(name);
+        if (ids == null) {
+            ids = new HashSet<>(2);
+            idsByName.put(name, ids);
+            addTrigrams(name);
+        }
+        ids.add(id);
+    }
+
+    private void unindexName(String name, Long id) {
+        Set<Long> ids = idsByName.get(name);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            idsByName.remove(name);
+            removeTrigrams(name);
+        }
+    }
+
+    private void addTrigrams(String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            trigrams.computeIfAbsent(trigram(name, i), gram -> new HashSet<>(4)).add(name);
+        }
+    }
+
+    private void removeTrigrams(String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            long gram = trigram(name, i);
+            Set<String> names = trigrams.get(gram);
+            if (names != null && names.remove(name) && names.isEmpty()) {
+                trigrams.remove(gram);
+            }
+        }
+    }
+
+    private static long trigram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private enum Kind {
+        QUIZZ, QUESTION
+    }
+
+    /**
+     * quizzes and questions of a tag
+     */
+    private static final class Postings {
+
+        private final PostingList quizzes = new PostingList();
+        private final PostingList questions = new PostingList();
+        private String display;
+        private String name;
+
+        private Postings(String display) {
+            this.display = display;
+            this.name = normalize(display);
+        }
+
+        private PostingList get(Kind kind) {
+            return kind == Kind.QUIZZ ? quizzes : questions;
+        }
+
+        private long bytes() {
+            return quizzes.bytes() + questions.bytes();
+        }
+    }
+
+    /**
+     * sorted set of ids in a growable primitive array, ids being mostly added in increasing order
+     */
+    private static final class PostingList {
+
+        private long[] ids = new long[2];
+        private int size;
+
+        private void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertion = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        private void remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private int firstAfter(long after) {
+            int position = Arrays.binarySearch(ids, 0, size, after);
+            return position >= 0 ? position + 1 : -position - 1;
+        }
+
+        private long bytes() {
+            return 16L + 16L + 8L * ids.length;
+        }
+    }
+
+}
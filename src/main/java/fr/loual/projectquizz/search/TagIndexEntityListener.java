@@ -0,0 +1,98 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.mapping.TagResolver;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPA listener of Tags, Quizz and Question keeping the {@link TagIndex} in sync.
+ * The changes are captured when the entity is written and applied once the transaction commits,
+ * so a rollback never reaches the index. A tag renamed or deleted is also forgotten by the {@link TagResolver}.
+ * Instantiated by Hibernate through the Spring bean container, the index is looked up lazily as it depends
+ * on the repositories. Quizz and Question have a version, so that a change of their tags alone is written
+ * as an update of the entity and reaches {@link PostUpdate}.
+ */
+public class TagIndexEntityListener {
+
+    private final ObjectProvider<TagIndex> tagIndex;
+    private final ObjectProvider<TagResolver> tagResolver;
+
+    public TagIndexEntityListener(ObjectProvider<TagIndex> tagIndex, ObjectProvider<TagResolver> tagResolver) {
+        this.tagIndex = tagIndex;
+        this.tagResolver = tagResolver;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        if (entity instanceof Tags) {
+            Tags tag = (Tags) entity;
+            Long id = tag.getId();
+            String name = tag.getTag();
+            afterCommit(() -> {
+                tagIndex.getObject().tagSaved(id, name);
+                tagResolver.getObject().evict(id);
+            });
+        } else if (entity instanceof Quizz) {
+            Quizz quizz = (Quizz) entity;
+            Long id = quizz.getId();
+            Map<Long, String> names = names(quizz.getTags());
+            afterCommit(() -> tagIndex.getObject().quizzTagsChanged(id, names));
+        } else if (entity instanceof Question) {
+            Question question = (Question) entity;
+            Long id = question.getId();
+            Map<Long, String> names = names(question.getTags());
+            afterCommit(() -> tagIndex.getObject().questionTagsChanged(id, names));
+        }
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        if (entity instanceof Tags) {
+            Long id = ((Tags) entity).getId();
+            afterCommit(() -> {
+                tagIndex.getObject().tagRemoved(id);
+                tagResolver.getObject().evict(id);
+            });
+        } else if (entity instanceof Quizz) {
+            Long id = ((Quizz) entity).getId();
+            afterCommit(() -> tagIndex.getObject().quizzRemoved(id));
+        } else if (entity instanceof Question) {
+            Long id = ((Question) entity).getId();
+            afterCommit(() -> tagIndex.getObject().questionRemoved(id));
+        }
+    }
+
+    private static Map<Long, String> names(List<Tags> tags) {
+        Map<Long, String> names = new HashMap<>();
+        if (tags != null) {
+            tags.forEach(tag -> names.put(tag.getId(), tag.getTag()));
+        }
+        return names;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+}
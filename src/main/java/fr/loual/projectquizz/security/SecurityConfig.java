@@ -1,10 +1,15 @@
 package fr.loual.projectquizz.security;
 
+import fr.loual.projectquizz.security.crypto.BoundedBCryptPasswordEncoder;
 import fr.loual.projectquizz.security.jwt.AuthEntryPoint;
 import fr.loual.projectquizz.security.jwt.AuthTokenFilter;
 import fr.loual.projectquizz.security.jwt.JwtUtils;
+import fr.loual.projectquizz.security.ratelimit.AuthRateLimitFilter;
+import fr.loual.projectquizz.security.ratelimit.TokenBucketRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +18,8 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -37,16 +42,20 @@ public class SecurityConfig {
     private JwtUtils jwtUtils;
 
     /**
-     * Bean providing the auth provider
+     * Bean providing the auth provider. Passwords hashed with an outdated cost are rehashed on login.
      *
+     * @param passwordEncoder the password encoder
      * @return a DaeoAuthenticationProvider object
      */
     @Bean
-    public DaoAuthenticationProvider authProvider() {
+    public DaoAuthenticationProvider authProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        if (userDetailsService instanceof UserDetailsPasswordService) {
+            authProvider.setUserDetailsPasswordService((UserDetailsPasswordService) userDetailsService);
+        }
 
         return authProvider;
     }
@@ -74,13 +83,73 @@ public class SecurityConfig {
     }
 
     /**
-     * Bean providing the password encoder
+     * Bean providing the per ip limiter of the signin and signup paths
      *
-     * @return a BCryptPasswordEncoder
+     * @param capacity the allowed burst
+     * @param permitsPerMinute the sustained rate
+     * @param maxEntries the maximum number of tracked ips
+     * @param idleSeconds the delay after which an idle ip is forgotten
+     * @return a TokenBucketRateLimiter
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public TokenBucketRateLimiter ipRateLimiter(@Value("${fr.loual.rateLimit.ip.capacity:20}") int capacity,
+                                                @Value("${fr.loual.rateLimit.ip.permitsPerMinute:60}") int permitsPerMinute,
+                                                @Value("${fr.loual.rateLimit.maxEntries:100000}") int maxEntries,
+                                                @Value("${fr.loual.rateLimit.idleSeconds:600}") long idleSeconds) {
+        return new TokenBucketRateLimiter("ip", capacity, permitsPerMinute, maxEntries, idleSeconds);
+    }
+
+    /**
+     * Bean providing the per username limiter of the signin and signup paths
+     *
+     * @param capacity the allowed burst
+     * @param permitsPerMinute the sustained rate
+     * @param maxEntries the maximum number of tracked usernames
+     * @param idleSeconds the delay after which an idle username is forgotten
+     * @return a TokenBucketRateLimiter
+     */
+    @Bean
+    public TokenBucketRateLimiter usernameRateLimiter(@Value("${fr.loual.rateLimit.username.capacity:5}") int capacity,
+                                                      @Value("${fr.loual.rateLimit.username.permitsPerMinute:10}") int permitsPerMinute,
+                                                      @Value("${fr.loual.rateLimit.maxEntries:100000}") int maxEntries,
+                                                      @Value("${fr.loual.rateLimit.idleSeconds:600}") long idleSeconds) {
+        return new TokenBucketRateLimiter("username", capacity, permitsPerMinute, maxEntries, idleSeconds);
+    }
+
+    /**
+     * Bean returning the rate limiting filter of the signin and signup paths
+     *
+     * @param ipRateLimiter the per ip limiter
+     * @param usernameRateLimiter the per username limiter
+     * @param objectMapper the mapper used to read the username from the body
+     * @return the filter
+     */
+    @Bean
+    public AuthRateLimitFilter authRateLimitFilter(TokenBucketRateLimiter ipRateLimiter,
+                                                   TokenBucketRateLimiter usernameRateLimiter,
+                                                   ObjectMapper objectMapper) {
+        return new AuthRateLimitFilter(ipRateLimiter, usernameRateLimiter, objectMapper);
+    }
+
+    /**
+     * Bean providing the password encoder, hashing on a dedicated bounded pool
+     *
+     * @param strength the BCrypt cost
+     * @param targetMillis the target hash duration used to calibrate the cost, 0 to use the strength
+     * @param threads the number of hashing threads
+     * @param queueCapacity the number of waiting hashes before rejecting
+     * @param timeoutMillis the maximum wait for a hash
+     * @param retryAfterSeconds the delay advertised to rejected clients
+     * @return a BoundedBCryptPasswordEncoder
+     */
+    @Bean
+    public BoundedBCryptPasswordEncoder passwordEncoder(@Value("${fr.loual.bcrypt.strength:10}") int strength,
+                                                       @Value("${fr.loual.bcrypt.targetMillis:0}") long targetMillis,
+                                                       @Value("${fr.loual.bcrypt.threads:2}") int threads,
+                                                       @Value("${fr.loual.bcrypt.queueCapacity:64}") int queueCapacity,
+                                                       @Value("${fr.loual.bcrypt.timeoutMillis:5000}") long timeoutMillis,
+                                                       @Value("${fr.loual.bcrypt.retryAfterSeconds:1}") long retryAfterSeconds) {
+        return new BoundedBCryptPasswordEncoder(strength, targetMillis, threads, queueCapacity, timeoutMillis, retryAfterSeconds);
     }
 
     /**
@@ -88,20 +157,26 @@ public class SecurityConfig {
      * Defines the filters, the auth provider that will be used
      *
      * @param http the HttpSecurity object
+     * @param authProvider the auth provider
+     * @param authRateLimitFilter the signin and signup rate limiting, applied before the authentication
      * @return a SecurityFilterChain
      * @throws Exception is something went wrong
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authProvider,
+                                           AuthRateLimitFilter authRateLimitFilter) throws Exception {
         // managing  cors, csrf, stateless policy and allowed url
         http.cors().and().csrf().disable()
                 .exceptionHandling().authenticationEntryPoint(unhauthorizedHandler).and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
         http.authorizeRequests().antMatchers("/user/signup/**", "/user/signin/**", "/h2-console/**", "/user/refreshToken").permitAll();
+        // bulk loads and dumps of the whole question bank
+        http.authorizeRequests().antMatchers("/export/**", "/import/**").hasRole("ADMIN");
         http.authorizeRequests().anyRequest().authenticated();
         http.headers().frameOptions().sameOrigin();
-        http.authenticationProvider(authProvider());
+        http.authenticationProvider(authProvider);
         http.addFilterBefore(authTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(authRateLimitFilter, AuthTokenFilter.class);
 
         return http.build();
     }
@@ -1,6 +1,9 @@
 package fr.loual.projectquizz.security.controllers;
 
+import fr.loual.projectquizz.security.exceptions.PasswordHashingRejectedException;
+import fr.loual.projectquizz.security.exceptions.UserAlreadyExistsException;
 import fr.loual.projectquizz.security.jwt.JwtUtils;
+import fr.loual.projectquizz.security.jwt.TokenClaims;
 import fr.loual.projectquizz.security.model.enumeration.ERole;
 import fr.loual.projectquizz.security.services.UserDetailsImpl;
 import fr.loual.projectquizz.security.services.UserServices;
@@ -66,7 +69,7 @@ public class AuthController {
         UserDetails userDetails = (UserDetailsImpl) auth.getPrincipal();
 
         // jwt generation
-        Map<String, String> tokens = jwtUtils.generateTokenAndRefresh(userDetails.getUsername());
+        Map<String, String> tokens = jwtUtils.generateTokenAndRefresh(userDetails);
         HttpHeaders headers = new HttpHeaders();
         headers.add(SecurityConstants.HEADER_TOKEN, SecurityConstants.TOKEN_START + tokens.get("token"));
         headers.add(SecurityConstants.REFRESH_TOKEN, SecurityConstants.TOKEN_START_REFRESH + tokens.get("refreshToken"));
@@ -89,20 +92,6 @@ public class AuthController {
         log.warn("registering a new user...");
         Map<String, Object> responseBody = new HashMap<>();
 
-        // check if username already taken
-        if (Boolean.TRUE.equals(userServices.usernameAlreadyExists(signupRequest.getUsername()))) {
-            log.warn(SecurityConstants.ERROR_USERNAME_TAKEN);
-            responseBody.put(SecurityConstants.ERROR, SecurityConstants.ERROR_USERNAME_TAKEN);
-            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(responseBody);
-        }
-
-        // check if email already taken
-        if (Boolean.TRUE.equals(userServices.emailAlreadyExists(signupRequest.getEmail()))) {
-            log.warn(SecurityConstants.ERROR_MAIL_TAKEN);
-            responseBody.put(SecurityConstants.ERROR, SecurityConstants.ERROR_MAIL_TAKEN);
-            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(responseBody);
-        }
-
         AppUser user = new AppUser()
                 .setUsername(signupRequest.getUsername())
                 .setEmail(signupRequest.getEmail())
@@ -118,6 +107,7 @@ public class AuthController {
             userServices.manageRoles(strRoles, roles);
         }
 
+        // username and email uniqueness is checked by the insert itself, see userAlreadyExists
         user.setRoles(roles);
         userServices.saveNewUser(user);
         log.info("user registered successfully!");
@@ -126,9 +116,10 @@ public class AuthController {
     }
 
     /**
-     * read - generate a new access token using the refresh token
+     * read - generate a new access token using the refresh token. The refresh token is rotated :
+     * it is consumed and a new one is sent back, presenting it again is refused.
      * @param request the httpservlet request object
-     * @return a http response with the new token or the error
+     * @return a http response with the new tokens or the error
      */
     @GetMapping("/refreshToken")
     public ResponseEntity<Map<String, Object>> refreshToken(HttpServletRequest request) {
@@ -145,19 +136,31 @@ public class AuthController {
         try {
 
             String refreshToken = headerRefreshToken.substring(SecurityConstants.REFRESH_SUBSTRING);
-            String username = jwtUtils.getUsernameFromToken(refreshToken);
+            TokenClaims claims = jwtUtils.getVerifiedClaims(refreshToken);
+
+            // refuse access tokens and already used refresh tokens before touching the database
+            if (jwtUtils.isRefreshTokenRevoked(claims)) {
+                log.warn("refused an already used or revoked refresh token");
+                responseBody.put(SecurityConstants.ERROR, SecurityConstants.INVALID_REFRESH);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body(responseBody);
+            }
+
+            String username = claims.getSubject();
             UserDetails user = userDetailsService.loadUserByUsername(username);
 
-            // check if token is valid, send error otherwise
-            if (Boolean.FALSE.equals(jwtUtils.validateToken(refreshToken, user))) {
+            // check if token is valid and consume it, send error otherwise
+            if (Boolean.FALSE.equals(jwtUtils.validateToken(claims, user)) || !jwtUtils.consumeRefreshToken(claims)) {
                 responseBody.put(SecurityConstants.ERROR, SecurityConstants.INVALID_REFRESH);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body(responseBody);
             }
 
-            // response with token
-            String newAccessToken = jwtUtils.generateJwtToken(username);
-            responseBody.put("newToken", SecurityConstants.TOKEN_START + newAccessToken);
-            return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(responseBody);
+            // response with the new tokens
+            Map<String, String> tokens = jwtUtils.generateTokenAndRefresh(user);
+            responseBody.put("newToken", SecurityConstants.TOKEN_START + tokens.get("token"));
+            responseBody.put("newRefreshToken", SecurityConstants.TOKEN_START_REFRESH + tokens.get("refreshToken"));
+            return ResponseEntity.status(HttpStatus.OK)
+                    .header(SecurityConstants.REFRESH_TOKEN, SecurityConstants.TOKEN_START_REFRESH + tokens.get("refreshToken"))
+                    .contentType(MediaType.APPLICATION_JSON).body(responseBody);
 
         } catch (Exception e) {
             responseBody.put(SecurityConstants.ERROR, SecurityConstants.INVALID_REFRESH);
@@ -187,8 +190,9 @@ public class AuthController {
             // build a response with updated user info
             UserInfoResponse responseInfo = new UserInfoResponse().setUsername(updatedUser.getUsername())
                     .setRoles(roles);
-            if (!Objects.equals(username, userDto.getUsername())) {
-                String newToken = jwtUtils.generateJwtToken(userDto.getUsername());
+            // in stateless mode the roles are in the token, so a new one is needed after every update
+            if (!Objects.equals(username, userDto.getUsername()) || jwtUtils.isStatelessAuth()) {
+                String newToken = jwtUtils.generateJwtToken(UserDetailsImpl.build(updatedUser));
                 responseBody.put("token", newToken);
             }
             responseBody.put("data", responseInfo);
@@ -199,6 +203,35 @@ public class AuthController {
         }
     }
 
+    /**
+     * answer 503 with a Retry-After header when the password hashing pool is saturated
+     * @param e the rejection
+     * @return a http response with the error
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, Object>> hashingRejected(PasswordHashingRejectedException e) {
+        log.warn(e.getMessage());
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put(SecurityConstants.ERROR, e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseBody);
+    }
+
+    /**
+     * answer 409 when a username or an email is already taken, detected by the unique constraints
+     * @param e the conflict
+     * @return a http response with the error
+     */
+    @ExceptionHandler(UserAlreadyExistsException.class)
+    public ResponseEntity<Map<String, Object>> userAlreadyExists(UserAlreadyExistsException e) {
+        log.warn(e.getMessage());
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put(SecurityConstants.ERROR, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(responseBody);
+    }
+
     @GetMapping("/test")
     @PreAuthorize("hasRole('ADMIN')")
     public void testController() {
@@ -0,0 +1,180 @@
+package fr.loual.projectquizz.security.crypto;
+
+import fr.loual.projectquizz.security.exceptions.PasswordHashingRejectedException;
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder running the hashes on a dedicated bounded pool, so that login bursts
+ * do not use every request thread. When the pool and its queue are full, the call fails fast
+ * with a PasswordHashingRejectedException instead of waiting.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Slf4j
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$.{53}");
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param strength the BCrypt cost used when no target latency is given
+     * @param targetMillis target duration of a hash, the cost is calibrated at startup when greater than 0
+     * @param threads number of hashing threads
+     * @param queueCapacity number of hashes waiting for a thread before rejecting
+     * @param timeoutMillis maximum time a caller waits for its hash
+     * @param retryAfterSeconds delay advertised to the rejected clients
+     */
+    public BoundedBCryptPasswordEncoder(int strength, long targetMillis, int threads, int queueCapacity,
+                                        long timeoutMillis, long retryAfterSeconds) {
+        this.strength = targetMillis > 0 ? calibrate(targetMillis) : strength;
+        this.delegate = new BCryptPasswordEncoder(this.strength);
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("password hashing pool started with {} threads, BCrypt cost {}", threads, this.strength);
+    }
+
+    /**
+     * find the BCrypt cost whose hash duration is the closest to the target
+     * @param targetMillis the target duration of a hash
+     * @return the calibrated cost
+     */
+    static int calibrate(long targetMillis) {
+        int cost = MIN_STRENGTH;
+        while (cost < MAX_STRENGTH) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            encoder.encode("calibration");
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // each cost increment doubles the hash duration, stop when the next cost would be further from the target
+            if (millis * 3 > targetMillis * 2) {
+                break;
+            }
+            cost++;
+        }
+        log.info("BCrypt cost calibrated to {} for a target of {} ms", cost, targetMillis);
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * a stored hash needs to be upgraded when its cost differs from the current one,
+     * it is then rehashed on the next successful login
+     * @param encodedPassword the stored hash
+     * @return true if the password should be encoded again
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T execute(Callable<T> hash) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - start);
+                    hashCount.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(SecurityConstants.ERROR_HASHING_BUSY, retryAfterSeconds);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingRejectedException(SecurityConstants.ERROR_HASHING_BUSY, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingRejectedException(SecurityConstants.ERROR_HASHING_BUSY, retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("security.password.hash.queue", executor, pool -> pool.getQueue().size())
+                .register(registry);
+        Gauge.builder("security.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        FunctionTimer.builder("security.password.hash", this,
+                        encoder -> encoder.hashCount.sum(), encoder -> encoder.hashNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionCounter.builder("security.password.hash.rejected", rejected, LongAdder::sum)
+                .register(registry);
+        Gauge.builder("security.password.hash.cost", this, BoundedBCryptPasswordEncoder::getStrength)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,20 @@
+package fr.loual.projectquizz.security.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Exception for password hashing requests rejected because the hashing pool is saturated
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,14 @@
+package fr.loual.projectquizz.security.exceptions;
+
+/**
+ * Exception for a username or an email already used by another account
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String message) {
+        super(message);
+    }
+
+}
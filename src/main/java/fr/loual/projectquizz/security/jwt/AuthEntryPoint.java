@@ -1,7 +1,7 @@
 package fr.loual.projectquizz.security.jwt;
 
 import fr.loual.projectquizz.security.tools.SecurityConstants;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.MediaType;
@@ -9,13 +9,15 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 /**
+ * Writes the unauthorized responses. The body has a fixed shape, so it is written from pre-encoded
+ * parts and only the path and the message are escaped per request.
  * @author Alexandre Lourencinho
  * @version 1.0
  */
@@ -23,6 +25,12 @@ import java.util.Map;
 @Component
 public class AuthEntryPoint implements AuthenticationEntryPoint {
 
+    private static final byte[] PATH_START = ascii("{\"" + SecurityConstants.PATH + "\":\"");
+    private static final byte[] MESSAGE_START = ascii("\",\"" + SecurityConstants.ERROR + "\":\"" + SecurityConstants.EXPIRED
+            + "\",\"" + SecurityConstants.MESSAGE + "\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] STATUS_UNAUTHORIZED = ascii(",\"" + SecurityConstants.STATUS + "\":" + HttpServletResponse.SC_UNAUTHORIZED + "}");
+    private static final byte[] STATUS_FORBIDDEN = ascii(",\"" + SecurityConstants.STATUS + "\":" + HttpServletResponse.SC_FORBIDDEN + "}");
 
     /**
      * manage the entry points errors
@@ -33,27 +41,45 @@ public class AuthEntryPoint implements AuthenticationEntryPoint {
      */
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException {
-        log.error("Unauthorized error: {}", authException.getMessage());
+        // debug only, an error line per rejection costs more than the rejection itself under a flood
+        log.debug("Unauthorized error: {}", authException.getMessage());
 
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         final String expired = (String) request.getAttribute(SecurityConstants.EXPIRED);
-        final Map<String, Object> body = new HashMap<>();
-        final ObjectMapper mapper = new ObjectMapper();
         String message;
+        byte[] status;
         if(StringUtils.isNotEmpty(expired)) {
             message = expired;
-            body.put(SecurityConstants.STATUS, HttpServletResponse.SC_UNAUTHORIZED);
-
+            status = STATUS_UNAUTHORIZED;
         } else {
             message = authException.getMessage();
-            body.put(SecurityConstants.STATUS, HttpServletResponse.SC_FORBIDDEN);
+            status = STATUS_FORBIDDEN;
+        }
+
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        byte[] path = encoder.quoteAsUTF8(request.getServletPath());
+        byte[] encodedMessage = message == null ? null : encoder.quoteAsUTF8(message);
+        int length = PATH_START.length + path.length + MESSAGE_START.length + status.length
+                + (encodedMessage == null ? NULL.length : encodedMessage.length + 2);
+        response.setContentLength(length);
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(PATH_START);
+        out.write(path);
+        out.write(MESSAGE_START);
+        if (encodedMessage == null) {
+            out.write(NULL);
+        } else {
+            out.write('"');
+            out.write(encodedMessage);
+            out.write('"');
         }
-        body.put(SecurityConstants.ERROR, SecurityConstants.EXPIRED);
-        body.put(SecurityConstants.MESSAGE, message);
-        body.put(SecurityConstants.PATH, request.getServletPath());
-        mapper.writeValue(response.getOutputStream(), body);
+        out.write(status);
+    }
 
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
     }
 
 }
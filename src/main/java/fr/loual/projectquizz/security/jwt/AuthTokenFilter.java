@@ -1,5 +1,6 @@
 package fr.loual.projectquizz.security.jwt;
 
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
 import fr.loual.projectquizz.security.tools.SecurityConstants;
 import io.jsonwebtoken.ExpiredJwtException;
 import lombok.AllArgsConstructor;
@@ -43,12 +44,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         if (StringUtils.startsWith(requestToken, SecurityConstants.TOKEN_START)) {
             String jwt = requestToken.substring(SecurityConstants.BEARER_SUBSTRING);
             try {
-                String username = jwtUtils.getUsernameFromToken(jwt);
+                TokenClaims claims = jwtUtils.getVerifiedClaims(jwt);
+                String username = claims.getSubject();
+                // refresh tokens only give access to the refresh path
                 if (StringUtils.isNotEmpty(username)
+                        && !claims.isRefreshToken()
                         &&
                         null == SecurityContextHolder.getContext().getAuthentication()) {
-                    UserDetails user = userDetailsService.loadUserByUsername(username);
-                    if (Boolean.TRUE.equals(jwtUtils.validateToken(jwt, user))) {
+                    // in stateless mode the roles come from the token, the database is not queried
+                    UserDetails user = jwtUtils.isStatelessAuth() && claims.hasRoles()
+                            ? UserDetailsImpl.build(claims)
+                            : userDetailsService.loadUserByUsername(username);
+                    if (Boolean.TRUE.equals(jwtUtils.validateToken(claims, user))) {
                         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities());
                         auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(auth);
@@ -0,0 +1,375 @@
+package fr.loual.projectquizz.security.jwt;
+
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.TextCodec;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encoder / decoder dedicated to our token shape (sub, iat, exp and the optional jti, uid and roles claims),
+ * signed with HS512. The key is derived once and each thread reuses its own Mac.
+ * Tokens are interoperable with the ones built and parsed by jjwt with the same base64 secret.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public class Hs512JwtCodec {
+
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final String HEADER = "{\"alg\":\"HS512\"}";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String ENCODED_HEADER = ENCODER.encodeToString(HEADER.getBytes(StandardCharsets.UTF_8));
+    private static final byte[] HEADER_BYTES = ENCODED_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int SIGNATURE_LENGTH = 86;
+
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * @param base64Secret the secret, base64 encoded like the one given to jjwt's signWith
+     */
+    public Hs512JwtCodec(String base64Secret) {
+        SecretKeySpec key = new SecretKeySpec(TextCodec.BASE64.decode(base64Secret), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * build and sign a token
+     * @param subject the username
+     * @param issuedAt the issue time in milliseconds
+     * @param expiration the expiration time in milliseconds
+     * @param userId the user id, or null
+     * @param roles the role names, or null
+     * @param id the token id (jti), or null
+     * @return the compact jwt
+     */
+    public String encode(String subject, long issuedAt, long expiration, Long userId, List<String> roles, String id) {
+        StringBuilder json = new StringBuilder(128);
+        json.append('{');
+        if (id != null) {
+            appendString(json.append("\"jti\":"), id).append(',');
+        }
+        if (userId != null) {
+            json.append('"').append(SecurityConstants.CLAIM_USER_ID).append("\":").append(userId.longValue()).append(',');
+        }
+        appendString(json.append("\"sub\":"), subject);
+        if (roles != null) {
+            json.append(",\"").append(SecurityConstants.CLAIM_ROLES).append("\":[");
+            for (int i = 0; i < roles.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendString(json, roles.get(i));
+            }
+            json.append(']');
+        }
+        json.append(",\"exp\":").append(expiration / 1000L)
+                .append(",\"iat\":").append(issuedAt / 1000L)
+                .append('}');
+
+        byte[] payload = ENCODER.encode(json.toString().getBytes(StandardCharsets.UTF_8));
+        int signatureStart = HEADER_BYTES.length + payload.length + 2;
+        byte[] token = new byte[signatureStart + SIGNATURE_LENGTH];
+        System.arraycopy(HEADER_BYTES, 0, token, 0, HEADER_BYTES.length);
+        token[HEADER_BYTES.length] = '.';
+        System.arraycopy(payload, 0, token, HEADER_BYTES.length + 1, payload.length);
+        token[signatureStart - 1] = '.';
+
+        Mac mac = macs.get();
+        mac.update(token, 0, signatureStart - 1);
+        byte[] signature = ENCODER.encode(mac.doFinal());
+        System.arraycopy(signature, 0, token, signatureStart, signature.length);
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * verify a token and read its claims
+     * @param token the compact jwt
+     * @param now the current time in milliseconds
+     * @return the verified claims
+     * @throws MalformedJwtException if the token can not be read
+     * @throws SignatureException if the signature does not match
+     * @throws ExpiredJwtException if the token is expired
+     */
+    public TokenClaims decode(String token, long now) {
+        if (token == null) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+        if (secondDot == token.length() - 1) {
+            throw new UnsupportedJwtException("Unsigned Claims JWTs are not supported.");
+        }
+        // non ascii characters become '?', which is not valid base64 and fails the decoding
+        byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+        if (firstDot != ENCODED_HEADER.length() || !token.startsWith(ENCODED_HEADER)) {
+            checkHeader(decodeSegment(bytes, 0, firstDot));
+        }
+
+        Mac mac = macs.get();
+        mac.update(bytes, 0, secondDot);
+        if (!MessageDigest.isEqual(mac.doFinal(), decodeSegment(bytes, secondDot + 1, bytes.length))) {
+            throw new SignatureException("JWT signature does not match locally computed signature. " +
+                    "JWT validity cannot be asserted and should not be trusted.");
+        }
+
+        TokenClaims claims = new PayloadReader(new String(decodeSegment(bytes, firstDot + 1, secondDot),
+                StandardCharsets.UTF_8)).read(now);
+        if (claims.isExpired(now)) {
+            throw new ExpiredJwtException(null, null, String.format("JWT expired at %s. Current time: %s",
+                    Instant.ofEpochMilli(claims.getExpiration()), Instant.ofEpochMilli(now)));
+        }
+        return claims;
+    }
+
+    private static byte[] decodeSegment(byte[] token, int start, int end) {
+        try {
+            ByteBuffer segment = DECODER.decode(ByteBuffer.wrap(token, start, end - start));
+            byte[] decoded = new byte[segment.remaining()];
+            segment.get(decoded);
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to decode JWT segment", e);
+        }
+    }
+
+    private static void checkHeader(byte[] header) {
+        String json = new String(header, StandardCharsets.UTF_8).replace(" ", "");
+        if (!json.contains("\"alg\":\"HS512\"")) {
+            throw new UnsupportedJwtException("Only HS512 signed tokens are supported.");
+        }
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Minimal reader for the flat JSON payload of a token, unknown claims are skipped
+     */
+    private static final class PayloadReader {
+
+        private final String json;
+        private int pos;
+
+        private PayloadReader(String json) {
+            this.json = json;
+        }
+
+        private TokenClaims read(long now) {
+            String subject = null;
+            String id = null;
+            long issuedAt = 0L;
+            long expiration = Long.MAX_VALUE;
+            long notBefore = Long.MIN_VALUE;
+            Long userId = null;
+            List<String> roles = null;
+
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    String name = readString();
+                    expect(':');
+                    switch (name) {
+                        case "sub":
+                            subject = readString();
+                            break;
+                        case "iat":
+                            issuedAt = readLong() * 1000L;
+                            break;
+                        case "exp":
+                            expiration = readLong() * 1000L;
+                            break;
+                        case "nbf":
+                            notBefore = readLong() * 1000L;
+                            break;
+                        case "jti":
+                            id = readString();
+                            break;
+                        case SecurityConstants.CLAIM_USER_ID:
+                            userId = readLong();
+                            break;
+                        case SecurityConstants.CLAIM_ROLES:
+                            roles = readStringArray();
+                            break;
+                        default:
+                            skipValue();
+                    }
+                } while (next() == ',');
+                pos--;
+                expect('}');
+            }
+            if (notBefore != Long.MIN_VALUE && notBefore > now) {
+                throw new PrematureJwtException(null, null, "JWT must not be accepted before " + Instant.ofEpochMilli(notBefore));
+            }
+            return new TokenClaims(subject, issuedAt, expiration, userId, roles, id);
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw new MalformedJwtException("Unexpected end of JWT payload");
+            }
+            return json.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw new MalformedJwtException("Malformed JWT payload at position " + (pos - 1));
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = null;
+            int start = pos;
+            while (pos < json.length()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return value == null ? json.substring(start, pos - 1) : value.toString();
+                }
+                if (c == '\\') {
+                    if (value == null) {
+                        value = new StringBuilder(json.substring(start, pos - 1));
+                    }
+                    value.append(readEscape());
+                } else if (value != null) {
+                    value.append(c);
+                }
+            }
+            throw new MalformedJwtException("Unterminated string in JWT payload");
+        }
+
+        private char readEscape() {
+            if (pos >= json.length()) {
+                throw new MalformedJwtException("Unterminated string in JWT payload");
+            }
+            char c = json.charAt(pos++);
+            switch (c) {
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    if (pos + 4 > json.length()) {
+                        throw new MalformedJwtException("Malformed unicode escape in JWT payload");
+                    }
+                    pos += 4;
+                    return (char) Integer.parseInt(json.substring(pos - 4, pos), 16);
+                default:
+                    return c;
+            }
+        }
+
+        private long readLong() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return (long) Double.parseDouble(json.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw new MalformedJwtException("Malformed number in JWT payload", e);
+            }
+        }
+
+        private List<String> readStringArray() {
+            List<String> values = new ArrayList<>(4);
+            expect('[');
+            if (peek() == ']') {
+                pos++;
+                return List.of();
+            }
+            do {
+                values.add(readString());
+            } while (next() == ',');
+            pos--;
+            expect(']');
+            return List.copyOf(values);
+        }
+
+        private void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                pos++;
+                if (peek() == close) {
+                    pos++;
+                    return;
+                }
+                do {
+                    if (close == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (next() == ',');
+                pos--;
+                expect(close);
+            } else {
+                while (pos < json.length() && ",}]".indexOf(json.charAt(pos)) < 0) {
+                    pos++;
+                }
+            }
+        }
+    }
+
+}
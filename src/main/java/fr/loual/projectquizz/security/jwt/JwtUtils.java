@@ -1,14 +1,20 @@
 package fr.loual.projectquizz.security.jwt;
 
+import fr.loual.projectquizz.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -18,13 +24,50 @@ import java.util.function.Function;
  */
 @Slf4j
 @Component
-public class JwtUtils {
+public class JwtUtils implements MeterBinder {
+
+    private static final long REFRESH_TOKEN_MILLIS = TimeUnit.DAYS.toMillis(1);
 
     @Value("${fr.loual.jwtSecret}")
     private String secret;
     @Value("${fr.loual.minuteExpiration}")
     private String minuteExpiration;
+    @Value("${fr.loual.tokenCacheSize:10000}")
+    private int tokenCacheSize;
+    @Value("${fr.loual.statelessAuth:false}")
+    private boolean statelessAuth;
+
+    @Value("${fr.loual.refreshRevocation.bucketMinutes:60}")
+    private long revocationBucketMinutes;
+    @Value("${fr.loual.refreshRevocation.expectedPerBucket:100000}")
+    private int revocationExpectedPerBucket;
+    @Value("${fr.loual.refreshRevocation.maxExactPerBucket:200000}")
+    private int revocationMaxExactPerBucket;
+
+    private VerifiedTokenCache tokenCache;
+    private RefreshTokenRevocationStore revocationStore;
+    private Hs512JwtCodec codec;
+    private long accessTokenMillis;
 
+    /**
+     * create the codec, the verified token cache and the refresh token revocation store once the properties are injected
+     */
+    @PostConstruct
+    public void init() {
+        tokenCache = new VerifiedTokenCache(tokenCacheSize);
+        revocationStore = new RefreshTokenRevocationStore(TimeUnit.MINUTES.toMillis(revocationBucketMinutes),
+                revocationExpectedPerBucket, revocationMaxExactPerBucket);
+        codec = new Hs512JwtCodec(secret);
+        accessTokenMillis = TimeUnit.MINUTES.toMillis(Long.parseLong(minuteExpiration));
+    }
+
+    /**
+     * check if the stateless mode is enabled, access tokens then carry the user id and roles
+     * @return true if the authentication can be built from the access token only
+     */
+    public boolean isStatelessAuth() {
+        return statelessAuth;
+    }
 
     /**
      * Method generating access and refresh token
@@ -35,10 +78,19 @@ public class JwtUtils {
         log.info("generating new Access Token and new Refresh Token...");
         String refreshToken = generateJwtRefreshToken(username);
         String token = generateJwtToken(username);
-        Map<String, String> tokens = new HashMap<>();
-        tokens.put("token", token);
-        tokens.put("refreshToken", refreshToken);
-        return tokens;
+        return Map.of("token", token, "refreshToken", refreshToken);
+    }
+
+    /**
+     * Method generating access and refresh token, the access token carrying the user's roles in stateless mode
+     * @param user the authenticated user
+     * @return a Map containing both tokens
+     */
+    public Map<String, String> generateTokenAndRefresh(UserDetails user) {
+        log.info("generating new Access Token and new Refresh Token...");
+        String refreshToken = generateJwtRefreshToken(user.getUsername());
+        String token = generateJwtToken(user);
+        return Map.of("token", token, "refreshToken", refreshToken);
     }
 
     /**
@@ -48,32 +100,69 @@ public class JwtUtils {
      */
     public String generateJwtToken(String username) {
         log.info("generating access token...");
-        Map<String, Object> claims = new HashMap<>();
-        Date date = new Date(System.currentTimeMillis());
-        Date expDate = Date.from(LocalDateTime.now().plusMinutes(Long.parseLong(minuteExpiration)).atZone(ZoneId.systemDefault()).toInstant());
+        long now = System.currentTimeMillis();
+        return codec.encode(username, now, now + accessTokenMillis, null, null, null);
+    }
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(date)
-                .setExpiration(expDate)
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+    /**
+     * Creation method for the access token, embedding the user id and roles in stateless mode
+     * @param user the user the token is issued for
+     * @return a string jwt
+     */
+    public String generateJwtToken(UserDetails user) {
+        if (!statelessAuth) {
+            return generateJwtToken(user.getUsername());
+        }
+        log.info("generating access token...");
+        Long userId = user instanceof UserDetailsImpl ? ((UserDetailsImpl) user).getId() : null;
+        List<String> roles = new ArrayList<>(user.getAuthorities().size());
+        user.getAuthorities().forEach(authority -> roles.add(authority.getAuthority()));
+        long now = System.currentTimeMillis();
+        return codec.encode(user.getUsername(), now, now + accessTokenMillis, userId, roles, null);
     }
 
     /**
-     * Creation method for the refresh token
+     * Creation method for the refresh token, identified by a random jti so that it can be used only once
      * @param username the user's username
      * @return a string jwt
      */
     public String generateJwtRefreshToken(String username) {
         log.info("generating refresh token...");
-        Date date = new Date(System.currentTimeMillis());
-        Map<String, Object> claims = new HashMap<>();
-        Date refreshDate = Date.from(LocalDateTime.now().plusDays(1).atZone(ZoneId.systemDefault()).toInstant());
-        return Jwts.builder().setClaims(claims).setSubject(username).setIssuedAt(date)
-                .setExpiration(refreshDate)
-                .signWith(SignatureAlgorithm.HS512, secret).compact();
+        long now = System.currentTimeMillis();
+        return codec.encode(username, now, now + REFRESH_TOKEN_MILLIS, null, null, newTokenId());
+    }
+
+    /**
+     * consume a refresh token for its rotation, a refresh token is accepted only once
+     * @param claims the verified claims of the refresh token
+     * @return true if the token was never used nor revoked
+     */
+    public boolean consumeRefreshToken(TokenClaims claims) {
+        return claims.isRefreshToken()
+                && revocationStore.markUsed(claims.getId(), claims.getExpiration(), System.currentTimeMillis());
+    }
+
+    /**
+     * check if a refresh token has already been used or has been revoked
+     * @param claims the verified claims of the refresh token
+     * @return true if the token must be refused
+     */
+    public boolean isRefreshTokenRevoked(TokenClaims claims) {
+        return !claims.isRefreshToken() || revocationStore.isRevoked(claims.getId(), claims.getExpiration());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.refresh.revocation.buckets", revocationStore, RefreshTokenRevocationStore::bucketCount)
+                .register(registry);
+        FunctionCounter.builder("auth.refresh.revocation.bloomOnly", revocationStore, RefreshTokenRevocationStore::bloomOnlyRejections)
+                .description("refresh tokens refused by the Bloom filter of a full bucket, possibly false positives")
+                .register(registry);
+    }
+
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
     }
 
 
@@ -86,6 +175,22 @@ public class JwtUtils {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
 
+    /**
+     * Parse and verify a token once, or get its claims from the verified token cache
+     * @param token the jwt token, access or refresh
+     * @return the verified claims
+     * @throws ExpiredJwtException if the token is expired
+     */
+    public TokenClaims getVerifiedClaims(String token) {
+        long now = System.currentTimeMillis();
+        TokenClaims claims = tokenCache.get(token, now);
+        if (claims == null) {
+            claims = codec.decode(token, now);
+            tokenCache.put(token, claims, now);
+        }
+        return claims;
+    }
+
     /**
      * Get a specific claim from a Claims object
      * @param token the JWT token
@@ -104,7 +209,7 @@ public class JwtUtils {
      * @return a string username
      */
     public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return getVerifiedClaims(token).getSubject();
     }
 
     /**
@@ -113,29 +218,28 @@ public class JwtUtils {
      * @return a date type
      */
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        return new Date(getVerifiedClaims(token).getExpiration());
     }
 
     /**
-     * check if token is expired
+     * check if the jwt token is valid
      * @param token the jwt token
-     * @return true or false (or null)
+     * @param user the user associated with
+     * @return true false or null
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expirationDate = getExpirationDateFromToken(token);
-        return expirationDate.before(new Date());
+    public Boolean validateToken(String token, UserDetails user) {
+        return validateToken(getVerifiedClaims(token), user);
     }
 
     /**
-     * check if the jwt token is valid
-     * @param token the jwt token
+     * check if already verified claims are valid for a user
+     * @param claims the verified claims of the jwt token
      * @param user the user associated with
-     * @return true false or null
+     * @return true if the subject matches the user and the token is not expired
      */
-    public Boolean validateToken(String token, UserDetails user) {
+    public Boolean validateToken(TokenClaims claims, UserDetails user) {
         log.info("checking if token is still valid...");
-        final String username = getUsernameFromToken(token);
-        return username.equals(user.getUsername()) && !isTokenExpired(token);
+        return claims.getSubject().equals(user.getUsername()) && !claims.isExpired(System.currentTimeMillis());
     }
 
 }
@@ -0,0 +1,161 @@
+package fr.loual.projectquizz.security.jwt;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory store of the used or revoked refresh token ids (jti).
+ * Ids are grouped in buckets by the expiration time of their token, a whole bucket is dropped once
+ * all its tokens are expired, so the store never keeps an id longer than its token lives.
+ * Each bucket has a Bloom filter answering most lookups, in front of an exact set capped in size.
+ * When the exact set of a bucket is full, the Bloom filter alone decides for that bucket, a false positive
+ * then only forces a new signin. These rejections by the Bloom filter alone are counted.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public class RefreshTokenRevocationStore {
+
+    private final long bucketMillis;
+    private final int bloomBits;
+    private final int bloomHashes;
+    private final int maxExactPerBucket;
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder bloomOnlyRejections = new LongAdder();
+    private volatile long lastPurge;
+
+    /**
+     * @param bucketMillis the time range covered by a bucket
+     * @param expectedPerBucket the expected number of ids per bucket, sizing the Bloom filters for 1% false positives
+     * @param maxExactPerBucket the maximum number of ids kept in the exact set of a bucket
+     */
+    public RefreshTokenRevocationStore(long bucketMillis, int expectedPerBucket, int maxExactPerBucket) {
+        this.bucketMillis = bucketMillis;
+        // m = -n ln(p) / ln(2)^2 and k = m / n ln(2), for p = 0.01
+        this.bloomBits = Math.max(64, (int) Math.ceil(expectedPerBucket * 9.585));
+        this.bloomHashes = 7;
+        this.maxExactPerBucket = maxExactPerBucket;
+    }
+
+    /**
+     * mark a refresh token id as used, atomically for the exact set
+     * @param id the token id
+     * @param expiration the token expiration in milliseconds
+     * @param now the current time in milliseconds
+     * @return true if the id was not used nor revoked before
+     */
+    public boolean markUsed(String id, long expiration, long now) {
+        purgeExpired(now);
+        return buckets.computeIfAbsent(expiration / bucketMillis, index -> new Bucket(bloomBits))
+                .markUsed(id);
+    }
+
+    /**
+     * check if a refresh token id has been used or revoked
+     * @param id the token id
+     * @param expiration the token expiration in milliseconds
+     * @return true if the token must be refused
+     */
+    public boolean isRevoked(String id, long expiration) {
+        Bucket bucket = buckets.get(expiration / bucketMillis);
+        return bucket != null && bucket.contains(id);
+    }
+
+    /**
+     * @return the number of buckets currently held
+     */
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return the number of ids refused by the Bloom filter of an overflowed bucket, without exact match
+     */
+    public long bloomOnlyRejections() {
+        return bloomOnlyRejections.sum();
+    }
+
+    private void purgeExpired(long now) {
+        if (now - lastPurge < bucketMillis) {
+            return;
+        }
+        lastPurge = now;
+        long current = now / bucketMillis;
+        buckets.keySet().removeIf(index -> index < current);
+    }
+
+    private final class Bucket {
+
+        private final AtomicLongArray bits;
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+        private volatile boolean overflowed;
+
+        private Bucket(int bitCount) {
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        private boolean markUsed(String id) {
+            if (contains(id)) {
+                return false;
+            }
+            long hash = hash(id);
+            for (int i = 0; i < bloomHashes; i++) {
+                int bit = index(hash, i);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            if (exact.size() < maxExactPerBucket) {
+                return exact.add(id);
+            }
+            overflowed = true;
+            return true;
+        }
+
+        private boolean contains(String id) {
+            long hash = hash(id);
+            for (int i = 0; i < bloomHashes; i++) {
+                int bit = index(hash, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            if (exact.contains(id)) {
+                return true;
+            }
+            // a used id past the cap of the bucket, or a false positive
+            if (overflowed) {
+                bloomOnlyRejections.increment();
+                return true;
+            }
+            return false;
+        }
+
+        private int index(long hash, int i) {
+            // double hashing, h1 + i * h2
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            return ((h1 + i * h2) & Integer.MAX_VALUE) % (bits.length() * 64);
+        }
+    }
+
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // murmur3 fmix64 finalizer, spreads the bits of the FNV-1a hash
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+}
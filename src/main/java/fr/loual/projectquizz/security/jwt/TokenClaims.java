@@ -0,0 +1,51 @@
+package fr.loual.projectquizz.security.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Immutable view of the claims of a token whose signature has already been verified
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TokenClaims {
+
+    private final String subject;
+    private final long issuedAt;
+    private final long expiration;
+    private final Long userId;
+    private final List<String> roles;
+    private final String id;
+
+    /**
+     * check if the token carries the user's roles, allowing to authenticate without loading the user
+     * @return true if the roles claim is present
+     */
+    public boolean hasRoles() {
+        return roles != null;
+    }
+
+    /**
+     * refresh tokens carry a unique id (jti), used for their rotation and revocation
+     * @return true if this is a refresh token
+     */
+    public boolean isRefreshToken() {
+        return id != null;
+    }
+
+    /**
+     * check if the token is expired at a given instant
+     * @param now the current time in milliseconds
+     * @return true if the token is expired
+     */
+    public boolean isExpired(long now) {
+        return expiration < now;
+    }
+
+}
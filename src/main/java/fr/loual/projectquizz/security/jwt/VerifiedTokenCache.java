@@ -0,0 +1,84 @@
+package fr.loual.projectquizz.security.jwt;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of already verified tokens, keyed by the raw token string.
+ * An entry never outlives the expiration of its token.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public class VerifiedTokenCache {
+
+    private static final long PURGE_INTERVAL_MILLIS = 1000L;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, TokenClaims> entries;
+    private volatile long lastPurge;
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.max(16, maxSize / 4));
+    }
+
+    /**
+     * get the verified claims of a token if they are cached and still valid
+     * @param token the raw jwt token
+     * @param now the current time in milliseconds
+     * @return the claims, or null if the token is unknown or expired
+     */
+    public TokenClaims get(String token, long now) {
+        TokenClaims claims = entries.get(token);
+        if (claims == null) {
+            return null;
+        }
+        if (claims.isExpired(now)) {
+            entries.remove(token, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * cache the verified claims of a token, evicting expired then arbitrary entries when full
+     * @param token the raw jwt token
+     * @param claims the verified claims
+     * @param now the current time in milliseconds
+     */
+    public void put(String token, TokenClaims claims, long now) {
+        if (maxSize <= 0 || claims.isExpired(now)) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            purgeExpired(now);
+            Iterator<String> keys = entries.keySet().iterator();
+            while (entries.size() >= maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        entries.put(token, claims);
+    }
+
+    /**
+     * remove a token from the cache
+     * @param token the raw jwt token
+     */
+    public void invalidate(String token) {
+        entries.remove(token);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired(long now) {
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurge = now;
+        entries.values().removeIf(claims -> claims.isExpired(now));
+    }
+
+}
@@ -5,13 +5,16 @@ import fr.loual.projectquizz.security.model.enumeration.ERole;
 import lombok.*;
 import lombok.experimental.Accessors;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
 import java.util.Objects;
 
 
 /**
- * Model / entity type for users' roles
+ * Model / entity type for users' roles, seeded once at startup and never updated
  * @author Alexandre Lourencinho
  * @version 1.0
  */
@@ -21,6 +24,9 @@ import java.util.Objects;
 @RequiredArgsConstructor
 @Entity
 @Accessors(chain = true)
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class AppRole {
 
     @Id
@@ -18,11 +18,18 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = AppUser.UK_USERNAME, columnNames = "username"),
+        @UniqueConstraint(name = AppUser.UK_EMAIL, columnNames = "email")
+})
 @ToString
 @AllArgsConstructor @NoArgsConstructor
 @Accessors(chain = true)
 public class AppUser {
 
+    public static final String UK_USERNAME = "uk_app_user_username";
+    public static final String UK_EMAIL = "uk_app_user_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
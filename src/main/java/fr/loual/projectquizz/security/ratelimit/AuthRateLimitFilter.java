@@ -0,0 +1,188 @@
+package fr.loual.projectquizz.security.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rate limiting of the signin and signup paths, per client ip and per username, applied before any
+ * password hashing. Rejected requests get a 429 with a Retry-After header. The body is buffered to read the
+ * username, a body longer than the buffer gets a 413 rather than reaching the controller truncated.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Slf4j
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 8192;
+    private static final byte[] TOO_MANY_REQUESTS_BODY = ("{\"" + SecurityConstants.ERROR + "\":\""
+            + SecurityConstants.ERROR_TOO_MANY_ATTEMPTS + "\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_BODY = ("{\"" + SecurityConstants.ERROR + "\":\""
+            + SecurityConstants.ERROR_BODY_TOO_LARGE + "\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter usernameLimiter;
+    private final ObjectMapper objectMapper;
+
+    public AuthRateLimitFilter(TokenBucketRateLimiter ipLimiter, TokenBucketRateLimiter usernameLimiter, ObjectMapper objectMapper) {
+        this.ipLimiter = ipLimiter;
+        this.usernameLimiter = usernameLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * only the POST requests on signin and signup are limited
+     * @param request current HTTP request
+     * @return true if the request is not limited
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !path.startsWith("/user/signin") && !path.startsWith("/user/signup");
+    }
+
+    /**
+     * check the ip then the body size and the username buckets, the body is read once and replayed to the controller
+     * @param request the HttpServletRequest object
+     * @param response the HttpServletResponse object
+     * @param filterChain the filter chain
+     * @throws ServletException Exception that can be thrown by the Servlet
+     * @throws IOException if the body can not be read or the response written
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String ip = request.getRemoteAddr();
+        if (!ipLimiter.tryAcquire(ip)) {
+            log.warn("too many authentication attempts from {}", ip);
+            reject(response, ipLimiter.retryAfterSeconds(ip));
+            return;
+        }
+
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            tooLarge(response);
+            return;
+        }
+        // one byte more than allowed tells a chunked body over the limit
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            tooLarge(response);
+            return;
+        }
+        String username = readUsername(body);
+        if (username != null && !usernameLimiter.tryAcquire(username)) {
+            log.warn("too many authentication attempts for a username");
+            reject(response, usernameLimiter.retryAfterSeconds(username));
+            return;
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private String readUsername(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username == null || !username.isTextual() ? null : username.asText();
+        } catch (IOException | RuntimeException e) {
+            // malformed bodies are left to the controller validation
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        write(response, HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_REQUESTS_BODY);
+    }
+
+    private static void tooLarge(HttpServletResponse response) throws IOException {
+        log.warn("authentication request body over {} bytes", MAX_BODY_BYTES);
+        write(response, HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE_BODY);
+    }
+
+    private static void write(HttpServletResponse response, HttpStatus status, byte[] body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * request whose body has already been read, replaying it from memory
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package fr.loual.projectquizz.security.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets keyed by client (ip, username...), lock free : each bucket is a single AtomicLong updated by CAS,
+ * holding the instant at which the bucket will be full again (GCRA formulation of the token bucket).
+ * A bucket full again is idle and can be dropped without changing the limits, which keeps the map small.
+ * Past the maximum number of keys, clients share a fixed set of overflow buckets instead of growing the map.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+public class TokenBucketRateLimiter implements MeterBinder {
+
+    private static final int OVERFLOW_BUCKETS = 1024;
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxEntries;
+    private final long idleNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong[] overflow = new AtomicLong[OVERFLOW_BUCKETS];
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * @param name the limiter name, used in the metrics
+     * @param capacity the bucket size, i.e. the allowed burst
+     * @param permitsPerMinute the refill rate of a bucket
+     * @param maxEntries the maximum number of keys tracked individually
+     * @param idleSeconds the delay after which a full bucket is dropped
+     */
+    public TokenBucketRateLimiter(String name, int capacity, int permitsPerMinute, int maxEntries, long idleSeconds) {
+        this.name = name;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+        this.burstNanos = intervalNanos * capacity;
+        this.maxEntries = maxEntries;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        for (int i = 0; i < OVERFLOW_BUCKETS; i++) {
+            overflow[i] = new AtomicLong(Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * take a token from the bucket of a key
+     * @param key the client key
+     * @return true if the request is allowed
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketFor(key, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                allowed.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * delay before the next token of a key is available
+     * @param key the client key
+     * @return the delay in seconds, rounded up
+     */
+    public long retryAfterSeconds(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return 1L;
+        }
+        long waitNanos = bucket.get() + intervalNanos - burstNanos - System.nanoTime();
+        return Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        sweep(now);
+        if (buckets.size() >= maxEntries) {
+            overflowed.increment();
+            return overflow[(key.hashCode() & Integer.MAX_VALUE) % OVERFLOW_BUCKETS];
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    /**
+     * drop the buckets full for longer than the idle delay, at most once per idle delay / 10,
+     * checked when a new key comes in
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < idleNanos / 10 || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        Iterator<Map.Entry<String, AtomicLong>> entries = buckets.entrySet().iterator();
+        while (entries.hasNext()) {
+            long fullAt = entries.next().getValue().get();
+            if (fullAt == Long.MIN_VALUE || now - fullAt > idleNanos) {
+                entries.remove();
+                evicted.increment();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("security.ratelimit.requests", allowed, LongAdder::sum)
+                .tags("limiter", name, "result", "allowed").register(registry);
+        FunctionCounter.builder("security.ratelimit.requests", rejected, LongAdder::sum)
+                .tags("limiter", name, "result", "rejected").register(registry);
+        FunctionCounter.builder("security.ratelimit.evictions", evicted, LongAdder::sum)
+                .tag("limiter", name).register(registry);
+        FunctionCounter.builder("security.ratelimit.overflow", overflowed, LongAdder::sum)
+                .tag("limiter", name).register(registry);
+        Gauge.builder("security.ratelimit.keys", this, TokenBucketRateLimiter::size)
+                .tag("limiter", name).register(registry);
+    }
+
+}
@@ -1,6 +1,7 @@
 package fr.loual.projectquizz.security.repositories;
 
 import fr.loual.projectquizz.security.model.entities.AppUser;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +15,7 @@ import java.util.Optional;
 public interface AppUserRepository extends CrudRepository<AppUser, Long> {
 
     Optional<AppUser> findByUsername(String username);
-    Boolean existsByUsername(String username);
-    Boolean existsByEmail(String email);
+    @EntityGraph(attributePaths = "roles")
+    Optional<AppUser> findWithRolesByUsername(String username);
+    AppUser saveAndFlush(AppUser user);
 }
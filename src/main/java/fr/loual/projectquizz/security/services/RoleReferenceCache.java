@@ -0,0 +1,61 @@
+package fr.loual.projectquizz.security.services;
+
+import fr.loual.projectquizz.security.model.entities.AppRole;
+import fr.loual.projectquizz.security.model.enumeration.ERole;
+import fr.loual.projectquizz.security.repositories.AppRoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable cache of the AppRole rows, which are reference data seeded at startup and never modified.
+ * Loaded once the application is ready, or by the first lookup if it comes earlier.
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class RoleReferenceCache {
+
+    private final AppRoleRepository roleRepository;
+    private volatile Map<ERole, AppRole> roles;
+
+    public RoleReferenceCache(AppRoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * load the roles once the startup runners have seeded them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<ERole, AppRole> loaded = new EnumMap<>(ERole.class);
+        roleRepository.findAll().forEach(role -> loaded.put(role.getName(), role));
+        roles = Collections.unmodifiableMap(loaded);
+        log.info("{} roles loaded in the reference cache", loaded.size());
+    }
+
+    /**
+     * get a role without database access
+     * @param name the role name
+     * @return the role, or null if it does not exist
+     */
+    public AppRole get(ERole name) {
+        Map<ERole, AppRole> current = roles;
+        if (current == null || !current.containsKey(name)) {
+            synchronized (this) {
+                if (roles == null || !roles.containsKey(name)) {
+                    load();
+                }
+                current = roles;
+            }
+        }
+        return current.get(name);
+    }
+
+}
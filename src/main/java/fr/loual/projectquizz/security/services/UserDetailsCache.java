@@ -0,0 +1,140 @@
+package fr.loual.projectquizz.security.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of UserDetailsImpl with a time to live, used by the UserDetailsService
+ * @author Alexandre Lourencinho
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements MeterBinder {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<String, Entry> entries;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    public UserDetailsCache(@Value("${fr.loual.userCache.maxSize:10000}") int maxSize,
+                            @Value("${fr.loual.userCache.ttlSeconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean full = size() > UserDetailsCache.this.maxSize;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        };
+    }
+
+    /**
+     * get a cached user
+     * @param username the username
+     * @return the cached user, or null if absent or expired
+     */
+    public UserDetailsImpl get(String username) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.user;
+            }
+            if (entry != null) {
+                entries.remove(username);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * cache a user loaded from the database
+     * @param user the user
+     */
+    public void put(UserDetailsImpl user) {
+        if (maxSize <= 0) {
+            return;
+        }
+        Entry entry = new Entry(user, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(user.getUsername(), entry);
+        }
+    }
+
+    /**
+     * evict users from the cache, now and again once the current transaction is committed
+     * so that a concurrent load cannot put back the data being replaced
+     * @param usernames the usernames to evict, null values are ignored
+     */
+    public void evict(String... usernames) {
+        evictNow(usernames);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(usernames);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String... usernames) {
+        synchronized (entries) {
+            for (String username : usernames) {
+                if (username != null && entries.remove(username) != null) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("security.userdetails.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("security.userdetails.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("security.userdetails.cache.evictions", evictions, LongAdder::sum)
+                .register(registry);
+        Gauge.builder("security.userdetails.cache.size", this, UserDetailsCache::size)
+                .register(registry);
+    }
+
+    private static final class Entry {
+        private final UserDetailsImpl user;
+        private final long expiresAt;
+
+        private Entry(UserDetailsImpl user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package fr.loual.projectquizz.security.services;
 
+import fr.loual.projectquizz.security.jwt.TokenClaims;
 import fr.loual.projectquizz.security.model.entities.AppUser;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -47,6 +49,23 @@ public class UserDetailsImpl implements UserDetails {
         );
     }
 
+    /**
+     * Build method used in stateless mode, from the claims of a verified access token
+     * @param claims the verified token claims, containing the user id and roles
+     * @return instanciation of the implementation, without email nor password
+     */
+    public static UserDetailsImpl build(TokenClaims claims) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>(claims.getRoles().size());
+        claims.getRoles().forEach(role -> authorities.add(new SimpleGrantedAuthority(role)));
+        return new UserDetailsImpl(
+                claims.getUserId(),
+                claims.getSubject(),
+                null,
+                null,
+                authorities
+        );
+    }
+
 
     @Override
     public boolean isAccountNonExpired() {
@@ -5,10 +5,10 @@ import fr.loual.projectquizz.security.repositories.AppUserRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 
 /**
@@ -19,22 +19,45 @@ import org.springframework.transaction.annotation.Transactional;
 @AllArgsConstructor
 @Service
 @Slf4j
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final AppUserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     /**
-     * get UserDetails instance from a username
+     * get UserDetails instance from a username, from the cache if possible
      * @param username the username identifying the user whose data is required.
      * @return an instance of UserDetails
      * @throws UsernameNotFoundException if the user is not found
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
         log.info("loading userDetails by username...");
-        AppUser user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return UserDetailsImpl.build(user);
+        AppUser user = userRepository.findWithRolesByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        userDetailsCache.put(userDetails);
+        return userDetails;
+    }
+
+    /**
+     * store the password rehashed with the current cost after a successful login
+     * @param user the authenticated user
+     * @param newPassword the new encoded password
+     * @return the user with the new password
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("rehashing password with the current cost...");
+        AppUser appUser = userRepository.findWithRolesByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        appUser.setPassword(newPassword);
+        userRepository.save(appUser);
+        userDetailsCache.evict(user.getUsername());
+        return UserDetailsImpl.build(appUser);
     }
 
 }
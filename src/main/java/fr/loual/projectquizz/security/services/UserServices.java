@@ -22,20 +22,6 @@ public interface UserServices {
      */
     AppUser findUserByUsername(String username);
 
-    /**
-     * The method used to check if a username is already taken
-     * @param username the username
-     * @return true if the username is already taken, false otherwise
-     */
-    Boolean usernameAlreadyExists(String username);
-
-    /**
-     * The method used to check if an email is already taken
-     * @param email the email
-     * @return true if the email is already taken, false otherwise
-     */
-    Boolean emailAlreadyExists(String email);
-
     /**
      * The method used to retrieve an AppRole from his rolename
      * @param rolename the rolename of the role
@@ -44,9 +30,10 @@ public interface UserServices {
     AppRole findRoleByRolename(ERole rolename);
 
     /**
-     * The method used to register a new user
+     * The method used to register a new user, in a single insert
      * @param user the user to register
      * @return the registered user
+     * @throws fr.loual.projectquizz.security.exceptions.UserAlreadyExistsException if the username or email is taken
      */
     AppUser saveNewUser(AppUser user);
 
@@ -69,6 +56,7 @@ public interface UserServices {
      * @param user the new information of the user
      * @param username the username of the user to update
      * @return the updated user
+     * @throws fr.loual.projectquizz.security.exceptions.UserAlreadyExistsException if the new username or email is taken
      */
     AppUser updateUserInfo(SignupRequest user, String username);
 }
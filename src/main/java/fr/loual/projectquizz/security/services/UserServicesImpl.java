@@ -1,16 +1,17 @@
 package fr.loual.projectquizz.security.services;
 
 import fr.loual.projectquizz.security.exceptions.RoleNotFoundException;
+import fr.loual.projectquizz.security.exceptions.UserAlreadyExistsException;
 import fr.loual.projectquizz.security.exceptions.UserNotFoundException;
 import fr.loual.projectquizz.security.model.dtos.SignupRequest;
 import fr.loual.projectquizz.security.model.entities.AppRole;
 import fr.loual.projectquizz.security.model.entities.AppUser;
 import fr.loual.projectquizz.security.model.enumeration.ERole;
-import fr.loual.projectquizz.security.repositories.AppRoleRepository;
 import fr.loual.projectquizz.security.repositories.AppUserRepository;
 import fr.loual.projectquizz.security.tools.SecurityConstants;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,7 +33,8 @@ import java.util.stream.Collectors;
 public class UserServicesImpl implements UserServices {
 
     private final AppUserRepository userRepository;
-    private final AppRoleRepository roleRepository;
+    private final RoleReferenceCache roleCache;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public AppUser findUserByUsername(String username) {
@@ -40,28 +42,17 @@ public class UserServicesImpl implements UserServices {
         return userRepository.findByUsername(username).orElse(null);
     }
 
-    @Override
-    public Boolean usernameAlreadyExists(String username) {
-        log.info("checking if username is already taken...");
-        return userRepository.existsByUsername(username);
-    }
-
-    @Override
-    public Boolean emailAlreadyExists(String email) {
-        log.info("checking if email is already taken...");
-        return userRepository.existsByEmail(email);
-    }
-
     @Override
     public AppRole findRoleByRolename(ERole rolename) {
         log.info("retrieving the role...");
-        return roleRepository.findByName(rolename).orElse(null);
+        return roleCache.get(rolename);
     }
 
     @Override
     public AppUser saveNewUser(AppUser user) {
         log.info("registering a new user...");
-        return userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
+        return saveUnique(user);
     }
 
     @Override
@@ -105,7 +96,7 @@ public class UserServicesImpl implements UserServices {
         AppUser oldUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User", "username", username));
         Set<AppRole> enumRoles = user.getRoles().stream()
-                .map(role -> roleRepository.findByName(ERole.valueOf(role))
+                .map(role -> Optional.ofNullable(roleCache.get(ERole.valueOf(role)))
                         .orElseThrow(() -> new UserNotFoundException("Role", "name", role)))
                 .collect(Collectors.toSet());
 
@@ -113,7 +104,29 @@ public class UserServicesImpl implements UserServices {
                 .setPassword(user.getPassword())
                 .setRoles(enumRoles)
                 .setEmail(user.getEmail());
-        return userRepository.save(oldUser);
+        // the old name on rename, the new one in case it was cached before
+        userDetailsCache.evict(username, user.getUsername());
+        return saveUnique(oldUser);
+    }
+
+    /**
+     * save and flush a user, the unique constraints on username and email replacing the exists queries
+     * @param user the user to save
+     * @return the saved user
+     */
+    private AppUser saveUnique(AppUser user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (cause.contains(AppUser.UK_USERNAME)) {
+                throw new UserAlreadyExistsException(SecurityConstants.ERROR_USERNAME_TAKEN);
+            }
+            if (cause.contains(AppUser.UK_EMAIL)) {
+                throw new UserAlreadyExistsException(SecurityConstants.ERROR_MAIL_TAKEN);
+            }
+            throw e;
+        }
     }
 
 }
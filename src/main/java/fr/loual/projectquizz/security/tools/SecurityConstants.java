@@ -24,6 +24,11 @@ public class SecurityConstants {
     public static final String ERROR_USERNAME_TAKEN = "Error : Username is already taken !";
     public static final String ERROR_MAIL_TAKEN = "Error : Email is already use !";
     public static final String INVALID_REFRESH = "Refresh token is invalid";
+    public static final String ERROR_HASHING_BUSY = "Error : Too many authentication requests, retry later";
+    public static final String ERROR_TOO_MANY_ATTEMPTS = "Error : Too many attempts, retry later";
+    public static final String ERROR_BODY_TOO_LARGE = "Error : Request body is too large";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
 
 
     public static final int BEARER_SUBSTRING = 7;
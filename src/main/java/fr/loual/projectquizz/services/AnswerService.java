@@ -1,12 +1,16 @@
 package fr.loual.projectquizz.services;
 
+import fr.loual.projectquizz.documents.QuizzDocumentCache;
+import fr.loual.projectquizz.mapping.PostedMapper;
 import fr.loual.projectquizz.model.dtos.PostedAnswer;
 import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
 import fr.loual.projectquizz.repositories.AnswerRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
@@ -14,20 +18,37 @@ import org.springframework.stereotype.Service;
 public class AnswerService {
 
     private AnswerRepository answerRepository;
-    private ModelMapper mapper;
+    private PostedMapper mapper;
+    private QuizzDocumentCache quizzDocumentCache;
+    private QuizzSnapshotCache quizzSnapshotCache;
 
     public Answer findAnswerById(Long answerId) {
         return answerRepository.findById(answerId).orElse(null);
     }
 
+    @Transactional
     public void saveAnswer(PostedAnswer answer) {
-        Answer savingAnswer = mapper.map(answer, Answer.class);
+        Answer savingAnswer = mapper.toAnswer(answer);
         answerRepository.save(savingAnswer);
+        if (savingAnswer.getQuestion() != null) {
+            contentChanged(savingAnswer.getQuestion().getQuizz());
+        }
         log.info("Answer saved");
     }
 
+    @Transactional
     public void deleteAnswer(Long answerId) {
+        answerRepository.findById(answerId)
+                .filter(answer -> answer.getQuestion() != null)
+                .ifPresent(answer -> contentChanged(answer.getQuestion().getQuizz()));
         answerRepository.deleteById(answerId);
     }
 
+    private void contentChanged(Quizz quizz) {
+        if (quizz != null) {
+            quizzDocumentCache.contentChanged(quizz);
+            quizzSnapshotCache.evict(quizz.getId());
+        }
+    }
+
 }
@@ -0,0 +1,173 @@
+package fr.loual.projectquizz.services;
+
+import fr.loual.projectquizz.exceptions.QuizzDeletedException;
+import fr.loual.projectquizz.grading.Grade;
+import fr.loual.projectquizz.grading.GradingEngine;
+import fr.loual.projectquizz.leaderboard.LeaderboardService;
+import fr.loual.projectquizz.model.dtos.PlayQuestion;
+import fr.loual.projectquizz.model.dtos.PlayScore;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.QuizzResult;
+import fr.loual.projectquizz.play.PlaySession;
+import fr.loual.projectquizz.play.PlaySessionStore;
+import fr.loual.projectquizz.play.QuizzSnapshot;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.QuizzResultRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Play sessions of the quizzes. A running session lives in memory only, on a snapshot of its quizz,
+ * and the database is written once, with the final result, when the session is finished.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class PlayService {
+
+    private PlaySessionStore sessionStore;
+    private QuizzSnapshotCache snapshotCache;
+    private QuizzResultRepository quizzResultRepository;
+    private QuizzRepository quizzRepository;
+    private GradingEngine gradingEngine;
+    private LeaderboardService leaderboardService;
+
+    /**
+     * start a session on a quizz
+     * @param quizzId the quizz id
+     * @param username the player
+     * @param userId the player id
+     * @return the score of the new session, or empty if the quizz does not exist
+     */
+    public Optional<PlayScore> start(Long quizzId, String username, Long userId) {
+        QuizzSnapshot quizz = snapshotCache.get(quizzId);
+        if (quizz == null) {
+            return Optional.empty();
+        }
+        PlaySession session = new PlaySession(UUID.randomUUID().toString(), username, userId, quizz, 0, 0,
+                Instant.now(), System.nanoTime());
+        sessionStore.add(session);
+        return Optional.of(score(session));
+    }
+
+    /**
+     * @param sessionId the session id
+     * @param username the player
+     * @return the question to answer, or empty once all the questions are answered
+     */
+    public Optional<PlayQuestion> next(String sessionId, String username) {
+        PlaySession session = sessionStore.get(sessionId, username);
+        QuizzSnapshot.QuestionSnapshot question = session.currentQuestion();
+        if (question == null) {
+            return Optional.empty();
+        }
+        List<PlayQuestion.Choice> choices = new ArrayList<>(question.getOptions().size());
+        if (question.isChoiceType()) {
+            question.getOptions().forEach(option -> choices.add(new PlayQuestion.Choice(option.getId(), option.getText())));
+        }
+        return Optional.of(new PlayQuestion(session.getId(), session.getPosition(), session.getQuizz().size(),
+                question.getId(), question.getText(), question.isChoiceType(), question.isFreeResponse(), choices));
+    }
+
+    /**
+     * answer the current question of a session
+     * @param sessionId the session id
+     * @param username the player
+     * @param answer the answer, for the current question
+     * @return the score after the answer
+     * @throws IllegalArgumentException if the answer is not for the current question
+     */
+    public PlayScore submit(String sessionId, String username, PostedAnswer answer) {
+        return score(sessionStore.update(sessionId, username, session -> {
+            QuizzSnapshot.QuestionSnapshot question = session.currentQuestion();
+            if (question == null) {
+                throw new IllegalArgumentException("All the questions are already answered");
+            }
+            if (!question.getId().equals(answer.getQuestionId())) {
+                throw new IllegalArgumentException("The answer is not for the current question");
+            }
+            boolean right = session.getQuizz().matcher(session.getPosition()).matches(answer);
+            return session.answered(right ? 1 : 0, System.nanoTime());
+        }));
+    }
+
+    /**
+     * answer all the remaining questions of a session at once, graded in one pass
+     * @param sessionId the session id
+     * @param username the player
+     * @param answers the answers, in any order, the ones for already answered questions are ignored
+     * @return the score after the answers, the questions left without an answer count as wrong
+     */
+    public PlayScore submitAll(String sessionId, String username, List<PostedAnswer> answers) {
+        return score(sessionStore.update(sessionId, username, session -> {
+            QuizzSnapshot quizz = session.getQuizz();
+            Grade grade = gradingEngine.grade(quizz, answers);
+            int points = 0;
+            for (int position = session.getPosition(); position < quizz.size(); position++) {
+                if (grade.isCorrect(position)) {
+                    points++;
+                }
+            }
+            return session.completed(points, System.nanoTime());
+        }));
+    }
+
+    /**
+     * end a session, save its result and rank it, the questions not answered count as wrong.
+     * The session is removed first so that it ends only once, and put back if its result can not be saved,
+     * unless its quizz is gone
+     * @param sessionId the session id
+     * @param username the player
+     * @return the final score
+     * @throws QuizzDeletedException if the quizz was deleted during the session, which is then dropped
+     */
+    public PlayScore finish(String sessionId, String username) {
+        PlaySession session = sessionStore.remove(sessionId, username);
+        QuizzResult result = new QuizzResult()
+                .setQuizz(new Quizz().setId(session.getQuizz().getQuizzId()))
+                .setUser(new AppUser().setId(session.getUserId()))
+                .setScore(session.getScore())
+                .setMaxScore(session.getQuizz().size())
+                .setStartedAt(session.getStartedAt())
+                .setFinishedAt(Instant.now());
+        Long quizzId = session.getQuizz().getQuizzId();
+        try {
+            quizzResultRepository.save(result);
+        } catch (DataIntegrityViolationException e) {
+            if (!quizzRepository.existsById(quizzId)) {
+                // no retry can ever save it
+                snapshotCache.evict(quizzId);
+                throw new QuizzDeletedException(quizzId);
+            }
+            sessionStore.restore(session);
+            throw e;
+        } catch (RuntimeException e) {
+            // the database unavailable: the player keeps the session to retry
+            sessionStore.restore(session);
+            throw e;
+        }
+        leaderboardService.record(quizzId, session.getQuizz().getTags(), session.getUserId(),
+                username, result.getScore(), result.getFinishedAt());
+        log.info("play session {} finished with {}/{}", sessionId, result.getScore(), result.getMaxScore());
+        PlayScore score = score(session);
+        score.setFinished(true);
+        return score;
+    }
+
+    private static PlayScore score(PlaySession session) {
+        return new PlayScore(session.getId(), session.getQuizz().getQuizzId(), session.getPosition(),
+                session.getQuizz().size(), session.getScore(), session.isFinished());
+    }
+
+}
@@ -1,12 +1,17 @@
 package fr.loual.projectquizz.services;
 
+import fr.loual.projectquizz.documents.QuizzDocumentCache;
+import fr.loual.projectquizz.mapping.PostedMapper;
 import fr.loual.projectquizz.model.dtos.PostedQuestion;
 import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
+import fr.loual.projectquizz.repositories.AnswerRepository;
 import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.search.FullTextSearch;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
@@ -15,12 +20,20 @@ public class QuestionService {
 
 
     private QuestionRepository questionRepository;
-    private ModelMapper mapper;
+    private AnswerRepository answerRepository;
+    private PostedMapper mapper;
+    private FullTextSearch fullTextSearch;
+    private QuizzDocumentCache quizzDocumentCache;
+    private QuizzSnapshotCache quizzSnapshotCache;
 
 
+    @Transactional
     public void saveQuestion(PostedQuestion question) {
-        Question savingQuestion = mapper.map(question, Question.class);
-        questionRepository.save(savingQuestion);
+        Question savingQuestion = mapper.toQuestion(question);
+        fullTextSearch.indexQuestion(questionRepository.save(savingQuestion));
+        answerRepository.saveAll(savingQuestion.getAnswer());
+        quizzDocumentCache.contentChanged(savingQuestion.getQuizz());
+        quizzSnapshotCache.evict(savingQuestion.getQuizz().getId());
         log.info("question saved");
     }
 
@@ -28,8 +41,16 @@ public class QuestionService {
         return questionRepository.findById(questionId).orElse(null);
     }
 
+    @Transactional
     public void deleteQuestion(Long questionId) {
+        questionRepository.findById(questionId)
+                .filter(question -> question.getQuizz() != null)
+                .ifPresent(question -> {
+                    quizzDocumentCache.contentChanged(question.getQuizz());
+                    quizzSnapshotCache.evict(question.getQuizz().getId());
+                });
         questionRepository.deleteById(questionId);
+        fullTextSearch.removeQuestion(questionId);
     }
 
 }
@@ -0,0 +1,195 @@
+package fr.loual.projectquizz.services;
+
+import fr.loual.projectquizz.model.dtos.AnswerView;
+import fr.loual.projectquizz.model.dtos.KeysetPage;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.dtos.TagLink;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.search.TagIndex;
+import fr.loual.projectquizz.tools.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the quizzes. Each view is assembled from projection queries, one per level of the tree
+ * (quizz, tags, questions, question tags, answers), so the number of statements does not depend on the
+ * number of questions or answers and no entity is ever loaded.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+@Transactional(readOnly = true)
+public class QuizzReadService {
+
+    private QuizzRepository quizzRepository;
+    private QuestionRepository questionRepository;
+    private AnswerRepository answerRepository;
+    private TagIndex tagIndex;
+
+    /**
+     * full quizz with its tags, questions, question tags and answers, in 5 statements
+     * @param quizzId the quizz id
+     * @return the quizz, or empty if it does not exist
+     */
+    public Optional<QuizzView> findQuizz(Long quizzId) {
+        return quizzRepository.findViewById(quizzId).map(quizz -> {
+            quizzRepository.findTagLinksByQuizzIds(List.of(quizzId))
+                    .forEach(link -> quizz.getTags().add(link.getTag()));
+            return quizz.setQuestions(assembleQuestions(quizzId));
+        });
+    }
+
+    /**
+     * questions of a quizz with their tags and answers, in 3 statements
+     * @param quizzId the quizz id
+     * @return the questions ordered by id
+     */
+    public List<QuestionView> findQuestionsOfQuizz(Long quizzId) {
+        return assembleQuestions(quizzId);
+    }
+
+    /**
+     * a question with its tags and answers, in 3 statements
+     * @param questionId the question id
+     * @return the question, or empty if it does not exist
+     */
+    public Optional<QuestionView> findQuestion(Long questionId) {
+        return questionRepository.findViewById(questionId).map(question -> {
+            questionRepository.findTagLinksByQuestionId(questionId)
+                    .forEach(link -> question.getTags().add(link.getTag()));
+            question.getAnswers().addAll(answerRepository.findViewsByQuestionId(questionId));
+            return question;
+        });
+    }
+
+    /**
+     * a page of the quizzes of an author, with their tags, in 2 statements
+     * @param username the author's username
+     * @param cursor the cursor of the page, null for the first one
+     * @param size the page size
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<QuizzView> findQuizzesByAuthor(String username, String cursor, int size) {
+        return quizzPage(quizzRepository.findViewsByUsername(username, KeysetCursor.decode(cursor), limit(size)), size);
+    }
+
+    /**
+     * a page of the quizzes having a tag, with their tags, in 2 statements
+     * @param tag the exact tag
+     * @param cursor the cursor of the page, null for the first one
+     * @param size the page size
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<QuizzView> findQuizzesByTag(String tag, String cursor, int size) {
+        return quizzPage(quizzRepository.findViewsByTag(tag, KeysetCursor.decode(cursor), limit(size)), size);
+    }
+
+    /**
+     * a page of the quizzes having a tag containing a term, with their tags : a tag index lookup,
+     * then 2 statements by primary key
+     * @param term the searched part of a tag
+     * @param cursor the cursor of the page, null for the first one
+     * @param size the page size
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<QuizzView> searchQuizzesByTag(String term, String cursor, int size) {
+        List<Long> ids = boxed(tagIndex.searchQuizzes(term, KeysetCursor.decode(cursor), size + 1));
+        return quizzPage(ids.isEmpty() ? List.of() : quizzRepository.findViewsByIds(ids), size);
+    }
+
+    /**
+     * a page of the questions having a tag, with their tags, in 2 statements
+     * @param tag the exact tag
+     * @param cursor the cursor of the page, null for the first one
+     * @param size the page size
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<QuestionView> findQuestionsByTag(String tag, String cursor, int size) {
+        return questionPage(questionRepository.findViewsByTag(tag, KeysetCursor.decode(cursor), limit(size)), size);
+    }
+
+    /**
+     * a page of the questions having a tag containing a term, with their tags : a tag index lookup,
+     * then 2 statements by primary key
+     * @param term the searched part of a tag
+     * @param cursor the cursor of the page, null for the first one
+     * @param size the page size
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<QuestionView> searchQuestionsByTag(String term, String cursor, int size) {
+        List<Long> ids = boxed(tagIndex.searchQuestions(term, KeysetCursor.decode(cursor), size + 1));
+        return questionPage(ids.isEmpty() ? List.of() : questionRepository.findViewsByIds(ids), size);
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        return boxed;
+    }
+
+    /**
+     * one more row than the page size is read, telling if there is a next page without a count query
+     */
+    private static PageRequest limit(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    private KeysetPage<QuizzView> quizzPage(List<QuizzView> rows, int size) {
+        KeysetPage<QuizzView> page = KeysetPage.of(rows, size, QuizzView::getId);
+        if (!page.getItems().isEmpty()) {
+            Map<Long, QuizzView> byId = page.getItems().stream().collect(Collectors.toMap(QuizzView::getId, quizz -> quizz));
+            for (TagLink link : quizzRepository.findTagLinksByQuizzIds(byId.keySet())) {
+                byId.get(link.getOwnerId()).getTags().add(link.getTag());
+            }
+        }
+        return page;
+    }
+
+    private KeysetPage<QuestionView> questionPage(List<QuestionView> rows, int size) {
+        KeysetPage<QuestionView> page = KeysetPage.of(rows, size, QuestionView::getId);
+        if (!page.getItems().isEmpty()) {
+            Map<Long, QuestionView> byId = page.getItems().stream().collect(Collectors.toMap(QuestionView::getId, question -> question));
+            for (TagLink link : questionRepository.findTagLinksByQuestionIds(byId.keySet())) {
+                byId.get(link.getOwnerId()).getTags().add(link.getTag());
+            }
+        }
+        return page;
+    }
+
+    private List<QuestionView> assembleQuestions(Long quizzId) {
+        List<QuestionView> questions = questionRepository.findViewsByQuizzId(quizzId);
+        if (questions.isEmpty()) {
+            return questions;
+        }
+        Map<Long, QuestionView> byId = new HashMap<>(questions.size() * 2);
+        questions.forEach(question -> byId.put(question.getId(), question));
+        for (TagLink link : questionRepository.findTagLinksByQuizzId(quizzId)) {
+            byId.get(link.getOwnerId()).getTags().add(link.getTag());
+        }
+        for (AnswerView answer : answerRepository.findViewsByQuizzId(quizzId)) {
+            byId.get(answer.getQuestionId()).getAnswers().add(answer);
+        }
+        return questions;
+    }
+
+}
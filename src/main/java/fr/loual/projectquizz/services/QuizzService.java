@@ -1,15 +1,16 @@
 package fr.loual.projectquizz.services;
 
+import fr.loual.projectquizz.documents.QuizzDocumentCache;
+import fr.loual.projectquizz.mapping.PostedMapper;
 import fr.loual.projectquizz.model.dtos.PostedQuizz;
 import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.play.QuizzSnapshotCache;
 import fr.loual.projectquizz.repositories.QuizzRepository;
-import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.search.FullTextSearch;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
@@ -18,24 +19,27 @@ import java.util.List;
 public class QuizzService {
 
     private QuizzRepository quizzRepository;
-    private ModelMapper mapper;
+    private PostedMapper mapper;
+    private FullTextSearch fullTextSearch;
+    private QuizzDocumentCache quizzDocumentCache;
+    private QuizzSnapshotCache quizzSnapshotCache;
 
+    @Transactional
     public void saveQuizz(PostedQuizz quizz) {
-        Quizz savingQuizz = mapper.map(quizz, Quizz.class);
-        quizzRepository.save(savingQuizz);
+        Quizz savingQuizz = mapper.toQuizz(quizz);
+        fullTextSearch.indexQuizz(quizzRepository.save(savingQuizz));
         log.info("quizz saved");
     }
 
     public void deleteQuizz(Long quizzId) {
         quizzRepository.deleteById(quizzId);
+        fullTextSearch.removeQuizz(quizzId);
+        quizzDocumentCache.evict(quizzId);
+        quizzSnapshotCache.evict(quizzId);
     }
 
     public Quizz findQuizzById(Long quizzId) {
         return quizzRepository.findById(quizzId).orElse(null);
     }
 
-    public List<Quizz> findAllQuizzByUser(AppUser user) {
-        return quizzRepository.findAllByUser(user).orElse(null);
-    }
-
 }
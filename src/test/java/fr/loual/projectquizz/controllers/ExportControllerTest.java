@@ -0,0 +1,126 @@
+package fr.loual.projectquizz.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.loual.projectquizz.importing.QuizzImporter;
+import fr.loual.projectquizz.model.dtos.ImportReport;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The export streams every quizz before its questions, each question with its tags and answers,
+ * and its output can be imported back
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ExportControllerTest {
+
+    private static final String BANK = "[{\"description\":\"export\",\"commentary\":\"round trip\",\"tags\":[\"exported\"],"
+            + "\"questions\":[{\"quizzQuestion\":\"first\",\"choiceType\":true,\"freeResponse\":false,\"tags\":[\"exported\",\"one\"],"
+            + "\"answer\":[{\"answer\":\"yes\",\"correct\":true},{\"answer\":\"no\",\"correct\":false}]},"
+            + "{\"quizzQuestion\":\"second\",\"choiceType\":false,\"freeResponse\":true,\"answer\":[{\"answer\":\"free\",\"correct\":true}]}]},"
+            + "{\"description\":\"empty\",\"commentary\":\"no questions\"}]";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper mapper;
+    @Autowired
+    private QuizzImporter quizzImporter;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Test
+    @WithMockUser
+    void exportIsReservedToAdmins() throws Exception {
+        mockMvc.perform(get("/export")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    void importIsReservedToAdmins() throws Exception {
+        mockMvc.perform(post("/import").contentType(MediaType.APPLICATION_JSON).content(BANK))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportStreamsQuizzesBeforeTheirQuestionsAndImportsBack() throws Exception {
+        Long userId = userRepository.findByUsername("alex").orElseThrow().getId();
+        quizzImporter.importJson(new ByteArrayInputStream(BANK.getBytes(StandardCharsets.UTF_8)), userId);
+        answerRepository.save(new Answer().setQuizzAnswer("orphan"));
+
+        String export = export();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : export.split("\n")) {
+            lines.add(mapper.readTree(line));
+        }
+        JsonNode end = lines.get(lines.size() - 1);
+        assertThat(end.get("type").asText()).isEqualTo("end");
+        assertThat(end.get("quizzes").asLong()).isEqualTo(quizzRepository.count());
+        assertThat(end.get("questions").asLong()).isEqualTo(questionRepository.count());
+        assertThat(end.get("skippedAnswers").asLong()).isEqualTo(answerRepository.countByQuestionIsNull()).isPositive();
+        assertThat(end.get("answers").asLong() + end.get("skippedAnswers").asLong()).isEqualTo(answerRepository.count());
+
+        List<Long> quizzIds = new ArrayList<>();
+        JsonNode first = null;
+        for (JsonNode line : lines) {
+            if ("quizz".equals(line.get("type").asText())) {
+                quizzIds.add(line.get("id").asLong());
+            } else if ("question".equals(line.get("type").asText()) && line.has("quizzId")) {
+                assertThat(quizzIds).contains(line.get("quizzId").asLong());
+                if ("first".equals(line.get("quizzQuestion").asText())) {
+                    first = line;
+                }
+            }
+        }
+        assertThat(quizzIds).isSorted();
+        assertThat(first).isNotNull();
+        assertThat(first.get("tags")).extracting(JsonNode::asText).containsExactlyInAnyOrder("exported", "one");
+        assertThat(first.get("answer")).hasSize(2);
+
+        long questions = questionRepository.count();
+        ImportReport report = quizzImporter.importJsonLines(
+                new ByteArrayInputStream(export.getBytes(StandardCharsets.UTF_8)), userId);
+        assertThat(report.getQuizzes()).isEqualTo(end.get("quizzes").asLong());
+        assertThat(report.getQuestions()).isEqualTo(end.get("questions").asLong());
+        assertThat(report.getAnswers()).isEqualTo(end.get("answers").asLong());
+        assertThat(questionRepository.count()).isEqualTo(2 * questions);
+    }
+
+    private String export() throws Exception {
+        MvcResult started = mockMvc.perform(get("/export")).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn()
+                .getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,265 @@
+package fr.loual.projectquizz.controllers;
+
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.services.QuestionService;
+import fr.loual.projectquizz.services.QuizzService;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The read endpoints must load a quizz in a fixed number of statements, whatever its size
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser
+class QuizzControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private TagsRepository tagsRepository;
+    @Autowired
+    private QuizzService quizzService;
+    @Autowired
+    private QuestionService questionService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private AppUser user;
+    private List<Tags> tags;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.findByUsername("alex").orElseThrow();
+        if (tags == null) {
+            tags = new ArrayList<>();
+            tagsRepository.findAll().forEach(tags::add);
+            for (String tag : List.of("java", "spring", "sql")) {
+                if (tags.stream().noneMatch(existing -> existing.getTag().equals(tag))) {
+                    tags.add(tagsRepository.save(new Tags().setTag(tag)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void getQuizzUsesFiveStatementsWhateverItsSize() throws Exception {
+        Quizz small = createQuizz(2, 2);
+        Quizz large = createQuizz(20, 4);
+
+        assertThat(statementsFor("/quizz/" + small.getId())).isEqualTo(5);
+        assertThat(statementsFor("/quizz/" + large.getId())).isEqualTo(5);
+
+        mockMvc.perform(get("/quizz/" + large.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author").value("alex"))
+                .andExpect(jsonPath("$.tags.length()").value(tags.size()))
+                .andExpect(jsonPath("$.questions.length()").value(20))
+                .andExpect(jsonPath("$.questions[0].tags.length()").value(2))
+                .andExpect(jsonPath("$.questions[0].answers.length()").value(4));
+    }
+
+    @Test
+    void getQuestionsUsesThreeStatements() throws Exception {
+        Quizz quizz = createQuizz(10, 3);
+
+        assertThat(statementsFor("/quizz/" + quizz.getId() + "/questions")).isEqualTo(3);
+        mockMvc.perform(get("/quizz/" + quizz.getId() + "/questions"))
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[9].answers.length()").value(3));
+    }
+
+    @Test
+    void getQuestionUsesThreeStatements() throws Exception {
+        Quizz quizz = createQuizz(1, 5);
+        Long questionId = questionRepository.findViewsByQuizzId(quizz.getId()).get(0).getId();
+
+        assertThat(statementsFor("/quizz/questions/" + questionId)).isEqualTo(3);
+        mockMvc.perform(get("/quizz/questions/" + questionId))
+                .andExpect(jsonPath("$.quizzId").value(quizz.getId()))
+                .andExpect(jsonPath("$.answers.length()").value(5));
+    }
+
+    @Test
+    void listingWalksAllPagesWithCursors() throws Exception {
+        String tag = "keyset-" + System.nanoTime();
+        List<Tags> saved = tags;
+        tags = List.of(tagsRepository.save(new Tags().setTag(tag)));
+        for (int i = 0; i < 5; i++) {
+            createQuizz(0, 0);
+        }
+        tags = saved;
+
+        String first = mockMvc.perform(get("/quizz").param("tag", tag).param("size", "2"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(first, "$.next");
+
+        statistics.clear();
+        String second = mockMvc.perform(get("/quizz").param("tag", tag).param("size", "2").param("cursor", next))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        mockMvc.perform(get("/quizz").param("tag", tag).param("size", "2").param("cursor", JsonPath.<String>read(second, "$.next")))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.next").doesNotExist());
+        mockMvc.perform(get("/quizz").param("tag", tag).param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void tagSearchUsesTheIndexThenTwoStatements() throws Exception {
+        String tag = "indexed-" + System.nanoTime();
+        List<Tags> saved = tags;
+        tags = List.of(tagsRepository.save(new Tags().setTag(tag)), saved.get(0));
+        Quizz quizz = createQuizz(0, 0);
+        tags = saved;
+
+        statistics.clear();
+        mockMvc.perform(get("/quizz/search").param("tag", tag.substring(2).toUpperCase()))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(quizz.getId()))
+                .andExpect(jsonPath("$.items[0].tags.length()").value(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        statistics.clear();
+        mockMvc.perform(get("/quizz/search").param("tag", "no-such-tag-anywhere"))
+                .andExpect(jsonPath("$.items.length()").value(0));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void retaggingAQuestionAloneReachesTheTagSearch() throws Exception {
+        String tag = "retagged-" + System.nanoTime();
+        Tags added = tagsRepository.save(new Tags().setTag(tag));
+        Quizz quizz = createQuizz(1, 0);
+        Long questionId = questionRepository.findViewsByQuizzId(quizz.getId()).get(0).getId();
+
+        // only the join table changes, the question row is written for its version
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                questionRepository.findById(questionId).orElseThrow().getTags().add(added));
+
+        mockMvc.perform(get("/quizz/questions/search").param("tag", tag))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(questionId));
+    }
+
+    @Test
+    void fullTextSearchFindsStemmedWordsOfSavedQuizzes() throws Exception {
+        quizzService.saveQuizz(new PostedQuizz().setUser(user)
+                .setDescription("Les capitales européennes").setCommentary("Geography of the running rivers"));
+
+        mockMvc.perform(get("/quizz/fulltext").param("q", "capitale europeenne").param("type", "quizz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Les capitales européennes\nGeography of the running rivers"));
+        mockMvc.perform(get("/quizz/fulltext").param("q", "river runs"))
+                .andExpect(jsonPath("$[0].type").value("quizz"));
+        mockMvc.perform(get("/quizz/fulltext").param("q", "capitale").param("type", "question"))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void knownVersionIsNotModifiedWithoutStatement() throws Exception {
+        Quizz quizz = createQuizz(3, 2);
+        String etag = mockMvc.perform(get("/quizz/" + quizz.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + quizz.getId() + "-0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics.clear();
+        mockMvc.perform(get("/quizz/" + quizz.getId()).header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void addingAQuestionChangesTheVersion() throws Exception {
+        Quizz quizz = createQuizz(1, 1);
+        String etag = mockMvc.perform(get("/quizz/" + quizz.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        questionService.saveQuestion(new PostedQuestion().setQuizzId(quizz.getId())
+                .setQuizzQuestion("added").setChoiceType(false).setFreeResponse(true));
+        assertThat(quizzRepository.findById(quizz.getId()).orElseThrow().getVersion()).isEqualTo(1);
+
+        mockMvc.perform(get("/quizz/" + quizz.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + quizz.getId() + "-1\""))
+                .andExpect(jsonPath("$.questions.length()").value(2))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void unknownQuizzIsNotFoundInOneStatement() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/quizz/999999")).andExpect(status().isNotFound());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private long statementsFor(String path) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(path)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Quizz createQuizz(int questionCount, int answerCount) {
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("description").setCommentary("commentary")
+                .setUser(user).setTags(new ArrayList<>(tags)));
+        for (int i = 0; i < questionCount; i++) {
+            Question question = questionRepository.save(new Question().setQuizzQuestion("question " + i)
+                    .setChoiceType(true).setFreeResponse(false).setUser(user).setQuizz(quizz)
+                    .setTags(new ArrayList<>(tags.subList(0, 2))));
+            for (int j = 0; j < answerCount; j++) {
+                answerRepository.save(new Answer().setQuizzAnswer("answer " + j).setQuestion(question));
+            }
+        }
+        return quizz;
+    }
+
+}
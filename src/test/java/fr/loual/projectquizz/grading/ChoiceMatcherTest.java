@@ -0,0 +1,48 @@
+package fr.loual.projectquizz.grading;
+
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A choice answer is right only with exactly the correct options
+ */
+class ChoiceMatcherTest {
+
+    private final ChoiceMatcher matcher = new ChoiceMatcher(new long[]{40, 10, 30, 20}, new long[]{30, 10});
+
+    @Test
+    void exactlyTheCorrectOptionsMatchInAnyOrder() {
+        assertThat(matcher.matches(chosen(10L, 30L))).isTrue();
+        assertThat(matcher.matches(chosen(30L, 10L))).isTrue();
+        assertThat(matcher.matches(chosen(30L, 10L, 30L))).isTrue();
+    }
+
+    @Test
+    void subsetOrSupersetDoesNotMatch() {
+        assertThat(matcher.matches(chosen(10L))).isFalse();
+        assertThat(matcher.matches(chosen(10L, 20L, 30L))).isFalse();
+    }
+
+    @Test
+    void unknownOrMissingIdDoesNotMatch() {
+        assertThat(matcher.matches(chosen(10L, 30L, 99L))).isFalse();
+        assertThat(matcher.matches(chosen(10L, null))).isFalse();
+        assertThat(matcher.matches(chosen())).isFalse();
+        assertThat(matcher.matches(new PostedAnswer())).isFalse();
+    }
+
+    @Test
+    void questionWithoutCorrectOptionNeverMatches() {
+        ChoiceMatcher noneCorrect = new ChoiceMatcher(new long[]{1, 2}, new long[]{3});
+        assertThat(noneCorrect.matches(chosen(1L))).isFalse();
+    }
+
+    private static PostedAnswer chosen(Long... ids) {
+        return new PostedAnswer().setAnswerIds(Arrays.asList(ids));
+    }
+
+}
@@ -0,0 +1,47 @@
+package fr.loual.projectquizz.grading;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The banded distance must agree with the plain Levenshtein distance around the maximum
+ */
+class EditDistanceTest {
+
+    @Test
+    void distanceAtTheMaximumIsAccepted() {
+        assertThat(EditDistance.within("kitten", "sitting", 3)).isTrue();
+        assertThat(EditDistance.within("paris", "pari", 1)).isTrue();
+        assertThat(EditDistance.within("paris", "parus", 1)).isTrue();
+        assertThat(EditDistance.within("same", "same", 0)).isTrue();
+    }
+
+    @Test
+    void distanceJustOverTheMaximumIsRefused() {
+        assertThat(EditDistance.within("kitten", "sitting", 2)).isFalse();
+        assertThat(EditDistance.within("paris", "pars", 0)).isFalse();
+        assertThat(EditDistance.within("paris", "bari", 1)).isFalse();
+    }
+
+    @Test
+    void emptyStringIsAtTheDistanceOfTheOtherLength() {
+        assertThat(EditDistance.within("", "", 0)).isTrue();
+        assertThat(EditDistance.within("", "ab", 2)).isTrue();
+        assertThat(EditDistance.within("abc", "", 2)).isFalse();
+    }
+
+    @Test
+    void lengthDifferenceOverTheMaximumIsRefused() {
+        assertThat(EditDistance.within("rome", "romeo and juliet", 3)).isFalse();
+        assertThat(EditDistance.within("romeo and juliet", "rome", 3)).isFalse();
+    }
+
+    @Test
+    void farStringsOfTheSameLengthAreRefused() {
+        // the band exceeds the maximum after the first rows, before the end of the strings
+        assertThat(EditDistance.within("abcdefghij", "zyxwvutsrq", 2)).isFalse();
+        assertThat(EditDistance.within("abcdefghij", "abcdefghzz", 2)).isTrue();
+    }
+
+}
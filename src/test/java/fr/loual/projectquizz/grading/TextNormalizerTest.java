@@ -0,0 +1,33 @@
+package fr.loual.projectquizz.grading;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Accented and plain text, ascii or not, must fold to the same value
+ */
+class TextNormalizerTest {
+
+    @Test
+    void accentsAreRemoved() {
+        assertThat(TextNormalizer.normalize("Éléphant")).isEqualTo("elephant");
+        assertThat(TextNormalizer.normalize("Crème brûlée")).isEqualTo(TextNormalizer.normalize("creme brulee"));
+        assertThat(TextNormalizer.normalize("Ça")).isEqualTo("ca");
+    }
+
+    @Test
+    void asciiTextIsOnlyLowerCased() {
+        assertThat(TextNormalizer.normalize("Paris")).isEqualTo("paris");
+        assertThat(TextNormalizer.normalize("")).isEmpty();
+    }
+
+    @Test
+    void whitespacesAreTrimmedAndCollapsed() {
+        assertThat(TextNormalizer.normalize("  New \t York\n ")).isEqualTo("new york");
+        // no-break space, outside ascii
+        assertThat(TextNormalizer.normalize("Saint\u00A0 Étienne\u00A0")).isEqualTo("saint etienne");
+        assertThat(TextNormalizer.normalize(" \t ")).isEmpty();
+    }
+
+}
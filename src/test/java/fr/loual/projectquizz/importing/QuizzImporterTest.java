@@ -0,0 +1,128 @@
+package fr.loual.projectquizz.importing;
+
+import fr.loual.projectquizz.exceptions.InvalidImportException;
+import fr.loual.projectquizz.model.dtos.ImportReport;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Imports stream the file, insert in JDBC batches and commit chunk by chunk
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QuizzImporterTest {
+
+    @Autowired
+    private QuizzImporter quizzImporter;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    private Statistics statistics;
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.findByUsername("alex").orElseThrow();
+    }
+
+    @Test
+    void jsonImportIsBatchedAndChunked() {
+        long quizzesBefore = quizzRepository.count();
+        long questionsBefore = questionRepository.count();
+        long answersBefore = answerRepository.count();
+        statistics.clear();
+
+        ImportReport report = quizzImporter.importJson(json(20, 100, 4), user.getId());
+
+        assertThat(report.getQuizzes()).isEqualTo(20);
+        assertThat(report.getQuestions()).isEqualTo(2000);
+        assertThat(report.getAnswers()).isEqualTo(8000);
+        assertThat(report.getChunks()).isGreaterThan(1);
+        assertThat(report.getRowsPerSecond()).isPositive();
+        // ids come 50 at a time and inserts go by batches of 50, tags included
+        long rows = report.getQuizzes() + report.getQuestions() + report.getAnswers();
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(rows / 10);
+
+        assertThat(quizzRepository.count()).isEqualTo(quizzesBefore + 20);
+        assertThat(questionRepository.count()).isEqualTo(questionsBefore + 2000);
+        assertThat(answerRepository.count()).isEqualTo(answersBefore + 8000);
+    }
+
+    @Test
+    void csvRowsAreGroupedByQuizzAndQuestion() {
+        String csv = "quizz;commentary;quizzTags;question;questionTags;choiceType;freeResponse;answer;correct\n"
+                + "Capitals;Europe;geo|europe;\"Capital of France?\";geo;true;false;Paris;true\n"
+                + "Capitals;Europe;geo|europe;\"Capital of France?\";geo;true;false;Lyon;false\n"
+                + "Capitals;Europe;geo|europe;\"Say \"\"hello\"\"\nin Spanish\";words;false;true;hola;true\n"
+                + "Rivers;;geo;Longest river?;;false;true;Nile;1\n";
+
+        ImportReport report = quizzImporter.importCsv(stream(csv), user.getId());
+
+        assertThat(report.getQuizzes()).isEqualTo(2);
+        assertThat(report.getQuestions()).isEqualTo(3);
+        assertThat(report.getAnswers()).isEqualTo(4);
+        assertThat(questionRepository.findAll()).extracting(Question::getQuizzQuestion)
+                .contains("Capital of France?", "Say \"hello\"\nin Spanish", "Longest river?");
+    }
+
+    @Test
+    void invalidContentReportsTheCommittedChunks() throws Exception {
+        String valid = new String(json(10, 100, 4).readAllBytes(), StandardCharsets.UTF_8);
+        String truncated = valid.substring(0, valid.length() - 1) + ",{\"description\":";
+
+        assertThatThrownBy(() -> quizzImporter.importJson(stream(truncated), user.getId()))
+                .isInstanceOf(InvalidImportException.class)
+                .satisfies(e -> assertThat(((InvalidImportException) e).getImported().getChunks()).isGreaterThan(0));
+    }
+
+    private static InputStream json(int quizzes, int questions, int answers) {
+        StringBuilder json = new StringBuilder("[");
+        for (int q = 0; q < quizzes; q++) {
+            json.append(q == 0 ? "" : ",").append("{\"description\":\"imported ").append(q)
+                    .append("\",\"commentary\":\"bulk\",\"tags\":[\"import\",\"import ").append(q % 3).append("\"],\"questions\":[");
+            for (int i = 0; i < questions; i++) {
+                json.append(i == 0 ? "" : ",").append("{\"quizzQuestion\":\"question ").append(q).append('.').append(i)
+                        .append("\",\"choiceType\":true,\"freeResponse\":false,\"tags\":[\"import ").append(i % 7)
+                        .append("\"],\"answer\":[");
+                for (int a = 0; a < answers; a++) {
+                    json.append(a == 0 ? "" : ",").append("{\"answer\":\"answer ").append(a)
+                            .append("\",\"correct\":").append(a == 0).append('}');
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+        }
+        return stream(json.append(']').toString());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
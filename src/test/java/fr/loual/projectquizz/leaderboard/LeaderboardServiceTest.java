@@ -0,0 +1,100 @@
+package fr.loual.projectquizz.leaderboard;
+
+import fr.loual.projectquizz.model.dtos.LeaderboardRow;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.QuizzResult;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.LeaderboardEntryRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.QuizzResultRepository;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A board rebuilt at startup must rank the players as the live board did
+ */
+@SpringBootTest
+class LeaderboardServiceTest {
+
+    @Autowired
+    private QuizzResultRepository quizzResultRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private LeaderboardEntryRepository entryRepository;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private TagsRepository tagsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void restartKeepsTheTieBreakOfTheBestScore() {
+        AppUser owner = userRepository.findByUsername("alex").orElseThrow();
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("ties").setUser(owner));
+        AppUser early = player("early");
+        AppUser late = player("late");
+        // late played first, but reached the shared top score after early
+        result(quizz, late, 3, 1_000);
+        result(quizz, early, 5, 5_000);
+        result(quizz, late, 5, 10_000);
+
+        LeaderboardService live = newService();
+        live.record(quizz.getId(), List.of(), late.getId(), late.getUsername(), 3, Instant.ofEpochMilli(1_000));
+        live.record(quizz.getId(), List.of(), early.getId(), early.getUsername(), 5, Instant.ofEpochMilli(5_000));
+        live.record(quizz.getId(), List.of(), late.getId(), late.getUsername(), 5, Instant.ofEpochMilli(10_000));
+
+        LeaderboardService restarted = newService();
+        restarted.load();
+
+        List<LeaderboardRow> top = restarted.quizzTop(quizz.getId(), 10);
+        assertThat(top).extracting(LeaderboardRow::getUsername).containsExactly(early.getUsername(), late.getUsername());
+        assertThat(top).isEqualTo(live.quizzTop(quizz.getId(), 10));
+    }
+
+    @Test
+    void restartSumsTheBestScoresOfTheTaggedQuizzes() {
+        AppUser owner = userRepository.findByUsername("alex").orElseThrow();
+        String tagName = "board-" + System.nanoTime();
+        Tags tag = tagsRepository.save(new Tags().setTag(tagName));
+        Quizz first = quizzRepository.save(new Quizz().setDescription("tagged").setUser(owner).setTags(List.of(tag)));
+        Quizz untagged = quizzRepository.save(new Quizz().setDescription("untagged").setUser(owner));
+        Quizz second = quizzRepository.save(new Quizz().setDescription("tagged too").setUser(owner).setTags(List.of(tag)));
+        AppUser player = player("tagged");
+        result(first, player, 2, 1_000);
+        result(first, player, 4, 2_000);
+        result(untagged, player, 5, 3_000);
+        result(second, player, 3, 4_000);
+
+        LeaderboardService restarted = newService();
+        restarted.load();
+
+        assertThat(restarted.tagTop(tagName, 10)).containsExactly(new LeaderboardRow(1, player.getUsername(), 7));
+    }
+
+    private LeaderboardService newService() {
+        return new LeaderboardService(quizzResultRepository, quizzRepository, entryRepository, transactionManager, 100);
+    }
+
+    private AppUser player(String name) {
+        String username = name + "-" + System.nanoTime();
+        return userRepository.save(new AppUser().setUsername(username).setEmail(username + "@quizz.test").setPassword("x"));
+    }
+
+    private void result(Quizz quizz, AppUser user, int score, long finishedAt) {
+        quizzResultRepository.save(new QuizzResult().setQuizz(quizz).setUser(user).setScore(score).setMaxScore(5)
+                .setStartedAt(Instant.ofEpochMilli(finishedAt - 100)).setFinishedAt(Instant.ofEpochMilli(finishedAt)));
+    }
+
+}
@@ -0,0 +1,93 @@
+package fr.loual.projectquizz.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranks count the players above, and the top keeps exactly the best players under concurrent updates
+ */
+class LeaderboardTest {
+
+    private static final int PLAYERS = 200;
+    private static final int TOP = 10;
+
+    @Test
+    void playersWithTheSameScoreShareTheirRank() {
+        Leaderboard board = new Leaderboard(2, 64);
+        board.offer(1L, "first", 5, 100);
+        board.offer(2L, "tied", 5, 200);
+        board.offer(3L, "third", 3, 300);
+        board.offer(4L, "last", 300, 400);
+        board.offer(4L, "last", 1, 500);
+
+        assertThat(board.rank(4L).getRank()).isEqualTo(1);
+        assertThat(board.rank(1L).getRank()).isEqualTo(2);
+        assertThat(board.rank(2L).getRank()).isEqualTo(2);
+        // out of the top, still ranked by the counts
+        assertThat(board.rank(3L).getRank()).isEqualTo(4);
+        assertThat(board.rank(5L)).isNull();
+        assertThat(board.top(10)).extracting(ranked -> ranked.getEntry().getUserId()).containsExactly(4L, 1L);
+        assertThat(board.players()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentOffersAndAddsKeepTheBestPlayers() throws Exception {
+        Leaderboard offered = new Leaderboard(TOP, 64);
+        Leaderboard added = new Leaderboard(TOP, 64);
+        List<Runnable> updates = new ArrayList<>();
+        for (int player = 0; player < PLAYERS; player++) {
+            long userId = player;
+            for (int k = 0; k < 5; k++) {
+                // best offer 3 * player + 4, sum of the adds 5 * (player + 1) : no two players tie
+                int score = 3 * player + k;
+                updates.add(() -> offered.offer(userId, "player-" + userId, score, score));
+                updates.add(() -> added.add(userId, "player-" + userId, (int) userId + 1, userId));
+            }
+        }
+        Collections.shuffle(updates, new Random(42));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable update : updates) {
+                futures.add(executor.submit(() -> {
+                    go.await();
+                    update.run();
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Long> best = IntStream.range(0, TOP).mapToObj(i -> (long) (PLAYERS - 1 - i)).collect(Collectors.toList());
+        for (Leaderboard board : List.of(offered, added)) {
+            assertThat(board.top(PLAYERS)).extracting(ranked -> ranked.getEntry().getUserId()).isEqualTo(best);
+            assertThat(board.top(PLAYERS)).extracting(Leaderboard.Ranked::getRank)
+                    .isEqualTo(IntStream.rangeClosed(1, TOP).boxed().collect(Collectors.toList()));
+            assertThat(board.rank(0L).getRank()).isEqualTo(PLAYERS);
+            assertThat(board.players()).isEqualTo(PLAYERS);
+        }
+        // the sums went past the 128 initial score slots
+        assertThat(added.rank(PLAYERS - 1L).getEntry().getScore()).isEqualTo(5 * PLAYERS);
+        assertThat(offered.rank(PLAYERS - 1L).getEntry().getScore()).isEqualTo(3 * PLAYERS + 1);
+    }
+
+}
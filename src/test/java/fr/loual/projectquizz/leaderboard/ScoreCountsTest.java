@@ -0,0 +1,74 @@
+package fr.loual.projectquizz.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The counts above a score stay exact when the tree grows past its initial capacity
+ */
+class ScoreCountsTest {
+
+    @Test
+    void countsAboveMatchTheScoresAfterGrowing() {
+        ScoreCounts counts = new ScoreCounts(65);
+        Random random = new Random(42);
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // mostly below the 128 initial slots, some far above to grow the tree several times
+            int score = i % 10 == 0 ? random.nextInt(5000) : random.nextInt(128);
+            scores.add(score);
+            counts.add(score, 1);
+        }
+        for (int i = 0; i < 100; i++) {
+            counts.add(scores.remove(scores.size() - 1), -1);
+        }
+
+        assertThat(counts.total()).isEqualTo(scores.size());
+        for (int score : new int[]{0, 1, 63, 126, 127, 128, 129, 1000, 4999, 5000, 20000}) {
+            long above = scores.stream().filter(s -> s > score).count();
+            assertThat(counts.countAbove(score)).as("above %d", score).isEqualTo(above);
+        }
+    }
+
+    @Test
+    void concurrentAddsWhileGrowingAreAllCounted() throws Exception {
+        ScoreCounts counts = new ScoreCounts(65);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                adds.add(executor.submit(() -> {
+                    go.await();
+                    for (int score = offset; score < 4000; score += 8) {
+                        counts.add(score, 1);
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> add : adds) {
+                add.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(counts.total()).isEqualTo(4000);
+        assertThat(counts.countAbove(0)).isEqualTo(3999);
+        assertThat(counts.countAbove(127)).isEqualTo(3872);
+        assertThat(counts.countAbove(3998)).isEqualTo(1);
+    }
+
+}
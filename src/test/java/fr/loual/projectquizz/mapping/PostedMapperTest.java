@@ -0,0 +1,131 @@
+package fr.loual.projectquizz.mapping;
+
+import fr.loual.projectquizz.model.dtos.AnswerView;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.dtos.PostedQuestion;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+import fr.loual.projectquizz.model.dtos.QuestionView;
+import fr.loual.projectquizz.model.dtos.TagLink;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import fr.loual.projectquizz.services.AnswerService;
+import fr.loual.projectquizz.services.QuestionService;
+import fr.loual.projectquizz.services.QuizzService;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The saved entities get the answer texts, the tags and the parents given by the posted objects
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PostedMapperTest {
+
+    @Autowired
+    private QuizzService quizzService;
+    @Autowired
+    private QuestionService questionService;
+    @Autowired
+    private AnswerService answerService;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private TagsRepository tagsRepository;
+    @Autowired
+    private PostedMapper postedMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void savedQuestionKeepsItsQuizzTagsAndAnswers() {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        Tags existing = tagsRepository.save(new Tags().setTag("mapped-existing"));
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("mapping").setUser(user));
+
+        questionService.saveQuestion(new PostedQuestion().setQuizzQuestion("mapped question").setChoiceType(true)
+                .setFreeResponse(false).setQuizzId(quizz.getId())
+                .setTags(List.of(" mapped-existing", "mapped-new", "mapped-new", " "))
+                .setAnswer(List.of(new PostedAnswer().setAnswer("right").setCorrect(true),
+                        new PostedAnswer().setAnswer("wrong").setCorrect(false))));
+
+        List<QuestionView> questions = questionRepository.findViewsByQuizzId(quizz.getId());
+        assertThat(questions).extracting(QuestionView::getQuizzQuestion).containsExactly("mapped question");
+        Long questionId = questions.get(0).getId();
+        assertThat(questionRepository.findTagLinksByQuestionId(questionId)).extracting(TagLink::getTag)
+                .containsExactlyInAnyOrder("mapped-existing", "mapped-new");
+        assertThat(tagsRepository.findByTagIn(List.of("mapped-existing", "mapped-new")))
+                .hasSize(2).contains(existing);
+        assertThat(answerRepository.findViewsByQuestionId(questionId)).extracting(AnswerView::getQuizzAnswer)
+                .containsExactlyInAnyOrder("right", "wrong");
+
+        answerService.saveAnswer(new PostedAnswer().setAnswer("added").setCorrect(false).setQuestionId(questionId));
+        assertThat(answerRepository.findViewsByQuestionId(questionId)).extracting(AnswerView::getQuizzAnswer)
+                .containsExactlyInAnyOrder("right", "wrong", "added");
+    }
+
+    @Test
+    void savedQuizzGetsItsTagsResolvedByName() {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        quizzService.saveQuizz(new PostedQuizz().setUser(user).setDescription("tagged by name")
+                .setTags(List.of("mapped-quizz", "mapped-quizz")));
+
+        List<Tags> tags = tagsRepository.findByTagIn(List.of("mapped-quizz"));
+        assertThat(tags).hasSize(1);
+        List<String> linked = transactionTemplate.execute(status -> {
+            try (Stream<TagLink> links = quizzRepository.streamAllTagLinks()) {
+                return links.map(TagLink::getTag).collect(Collectors.toList());
+            }
+        });
+        assertThat(linked).contains("mapped-quizz");
+    }
+
+    @Test
+    void mappedQuestionIsOwnedByTheAuthorOfItsQuizzWithoutLoadingIt() {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("owned").setUser(user));
+
+        Question question = transactionTemplate.execute(status -> {
+            Question mapped = postedMapper.toQuestion(new PostedQuestion().setQuizzQuestion("owned").setQuizzId(quizz.getId()));
+            assertThat(Hibernate.isInitialized(mapped.getQuizz())).isFalse();
+            return mapped;
+        });
+
+        assertThat(question.getQuizz().getId()).isEqualTo(quizz.getId());
+        assertThat(question.getUser().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void questionWithoutAKnownQuizzIsRefused() {
+        long questions = questionRepository.count();
+
+        assertThatThrownBy(() -> questionService.saveQuestion(new PostedQuestion().setQuizzQuestion("orphan")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("quizzId is required");
+        assertThatThrownBy(() -> questionService.saveQuestion(new PostedQuestion().setQuizzQuestion("orphan")
+                .setQuizzId(Long.MAX_VALUE)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Quizz not found");
+        assertThat(questionRepository.count()).isEqualTo(questions);
+    }
+
+}
@@ -0,0 +1,125 @@
+package fr.loual.projectquizz.mapping;
+
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import fr.loual.projectquizz.search.TagIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent writers carrying the same new tags all get the same ids, the tags being inserted once,
+ * and with the transaction of their writer
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TagResolverTest {
+
+    @Autowired
+    private TagResolver tagResolver;
+    @Autowired
+    private TagsRepository tagsRepository;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentWritersShareTheInsertedTags() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            names.add("resolved " + i);
+        }
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        List<Future<Map<String, Tags>>> results = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return tagResolver.resolve(names, created::addAndGet);
+                }));
+            }
+            start.countDown();
+            Map<String, Tags> first = results.get(0).get();
+            assertThat(first).hasSize(names.size());
+            for (Future<Map<String, Tags>> result : results) {
+                Map<String, Tags> tags = result.get();
+                names.forEach(name -> assertThat(tags.get(name).getId()).isEqualTo(first.get(name).getId()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(created.get()).isEqualTo(names.size());
+        assertThat(tagsRepository.findByTagIn(names)).hasSize(names.size());
+        assertThat(tagIndex.matchingTags("resolved 1")).contains("resolved 1");
+
+        double hits = registry.get("tags.resolved").tag("result", "hit").functionCounter().count();
+        Map<String, Tags> again = tagResolver.resolve(List.of(" resolved 3", "resolved 3", "", "resolved 4"));
+        assertThat(again.keySet()).containsExactlyInAnyOrder("resolved 3", "resolved 4");
+        assertThat(registry.get("tags.resolved").tag("result", "hit").functionCounter().count()).isEqualTo(hits + 2);
+    }
+
+    @Test
+    void tagsOfARolledBackWriteAreForgotten() {
+        AtomicInteger created = new AtomicInteger();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(tagResolver.resolve(List.of("rolled back"), created::addAndGet)).containsKey("rolled back");
+            status.setRollbackOnly();
+        });
+
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(tagsRepository.findByTagIn(List.of("rolled back"))).isEmpty();
+        assertThat(tagIndex.matchingTags("rolled back")).doesNotContain("rolled back");
+
+        Long id = tagResolver.resolve(List.of("rolled back"), created::addAndGet).get("rolled back").getId();
+        assertThat(created.get()).isEqualTo(2);
+        assertThat(tagsRepository.findByTagIn(List.of("rolled back"))).extracting(Tags::getId).containsExactly(id);
+        assertThat(tagIndex.matchingTags("rolled back")).contains("rolled back");
+    }
+
+    @Test
+    void writerWaitingForAnUncommittedTagGetsItsId() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        try {
+            Future<Long> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                Long id = tagResolver.resolve(List.of("contended")).get("contended").getId();
+                inserted.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }));
+            inserted.await();
+            Future<Long> second = executor.submit(() -> tagResolver.resolve(List.of("contended")).get("contended").getId());
+            // the second insert waits on the unique key of the first one, then fails and finds the committed row
+            Thread.sleep(200);
+            commit.countDown();
+            assertThat(second.get()).isEqualTo(first.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(tagsRepository.findByTagIn(List.of("contended"))).hasSize(1);
+    }
+
+}
@@ -0,0 +1,80 @@
+package fr.loual.projectquizz.play;
+
+import fr.loual.projectquizz.exceptions.PlaySessionNotFoundException;
+import fr.loual.projectquizz.exceptions.TooManyPlaySessionsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The store never holds more sessions than its bound, whatever the concurrency of the starts
+ */
+class PlaySessionStoreTest {
+
+    private static final int MAX = 100;
+
+    @Test
+    void concurrentStartsStopAtTheBound() throws Exception {
+        PlaySessionStore store = new PlaySessionStore(MAX, 30);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> starts = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String id = "session-" + i;
+                starts.add(executor.submit(() -> {
+                    go.await();
+                    try {
+                        store.add(session(id));
+                        return true;
+                    } catch (TooManyPlaySessionsException e) {
+                        return false;
+                    }
+                }));
+            }
+            go.countDown();
+            int added = 0;
+            for (Future<Boolean> start : starts) {
+                if (start.get(10, TimeUnit.SECONDS)) {
+                    added++;
+                }
+            }
+            assertThat(added).isEqualTo(MAX);
+            assertThat(store.size()).isEqualTo(MAX);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void removedAndRestoredSessionsKeepTheCount() {
+        PlaySessionStore store = new PlaySessionStore(1, 30);
+        store.add(session("first"));
+        assertThatThrownBy(() -> store.add(session("second"))).isInstanceOf(TooManyPlaySessionsException.class);
+
+        PlaySession removed = store.remove("first", "alex");
+        assertThatThrownBy(() -> store.get("first", "alex")).isInstanceOf(PlaySessionNotFoundException.class);
+        store.restore(removed);
+        assertThat(store.get("first", "alex").getId()).isEqualTo("first");
+        assertThatThrownBy(() -> store.add(session("second"))).isInstanceOf(TooManyPlaySessionsException.class);
+
+        store.remove("first", "alex");
+        store.add(session("second"));
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    private static PlaySession session(String id) {
+        return new PlaySession(id, "alex", 1L, null, 0, 0, Instant.now(), System.nanoTime());
+    }
+
+}
@@ -0,0 +1,40 @@
+package fr.loual.projectquizz.rooms;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A subscriber whose client is gone must end its request, so that it leaves the room
+ */
+class SubscriberTest {
+
+    @Test
+    void failedWriteCompletesTheEmitterWithTheError() {
+        AtomicReference<Throwable> completedWith = new AtomicReference<>();
+        RoomEmitter emitter = new RoomEmitter(1000L) {
+            @Override
+            public void sendFrame(byte[] frame) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void completeWithError(Throwable error) {
+                completedWith.set(error);
+            }
+        };
+        Subscriber subscriber = new Subscriber("id", "alex", emitter, 4, SlowConsumerPolicy.DROP_OLDEST,
+                Runnable::run, new LongAdder());
+
+        assertThat(subscriber.offer(new byte[]{'x'})).isTrue();
+
+        assertThat(subscriber.isClosed()).isTrue();
+        assertThat(completedWith.get()).hasMessage("Broken pipe");
+        assertThat(subscriber.offer(new byte[]{'y'})).isFalse();
+    }
+
+}
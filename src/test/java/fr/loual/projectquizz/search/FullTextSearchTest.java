@@ -0,0 +1,64 @@
+package fr.loual.projectquizz.search;
+
+import fr.loual.projectquizz.model.dtos.SearchHit;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A persisted index is reused only if it was committed with the current state of the database
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FullTextSearchTest {
+
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void indexMissingAnEditIsRebuiltAtStartup() throws Exception {
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("volcans d'Auvergne")
+                .setUser(userRepository.findByUsername("alex").orElseThrow()));
+        FullTextSearch first = open();
+        first.checkIndex();
+        assertThat(first.search("volcans", FullTextSearch.QUIZZ, 10)).extracting(SearchHit::getId).contains(quizz.getId());
+        first.destroy();
+
+        // edited while the index was closed, the number of rows stays the same
+        quizzRepository.save(quizzRepository.findById(quizz.getId()).orElseThrow().setDescription("glaciers des Alpes"));
+
+        FullTextSearch second = open();
+        second.checkIndex();
+        assertThat(second.search("glaciers", FullTextSearch.QUIZZ, 10)).extracting(SearchHit::getId).contains(quizz.getId());
+        assertThat(second.search("volcans", FullTextSearch.QUIZZ, 10)).extracting(SearchHit::getId).doesNotContain(quizz.getId());
+        second.destroy();
+
+        FullTextSearch third = open();
+        third.checkIndex();
+        assertThat(third.search("glaciers", FullTextSearch.QUIZZ, 10)).extracting(SearchHit::getId).contains(quizz.getId());
+        third.destroy();
+    }
+
+    private FullTextSearch open() throws Exception {
+        return new FullTextSearch(quizzRepository, questionRepository, transactionManager, directory.toString(), 3600);
+    }
+
+}
@@ -0,0 +1,69 @@
+package fr.loual.projectquizz.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tags differing only by case are distinct tags sharing their search terms
+ */
+class TagIndexTest {
+
+    private TagIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TagIndex(null, null, null, null);
+        ReflectionTestUtils.setField(index, "built", true);
+        index.tagSaved(1L, "Java");
+        index.tagSaved(2L, "java");
+        index.quizzTagsChanged(10L, Map.of(1L, "Java"));
+        index.quizzTagsChanged(20L, Map.of(2L, "java"));
+    }
+
+    @Test
+    void tagsDifferingByCaseAreBothFound() {
+        assertThat(index.matchingTags("JAV")).containsExactlyInAnyOrder("Java", "java");
+        assertThat(index.searchQuizzes("java", 0, 10)).containsExactly(10L, 20L);
+    }
+
+    @Test
+    void removingOneCaseKeepsTheOther() {
+        index.tagRemoved(1L);
+
+        assertThat(index.matchingTags("java")).containsExactly("java");
+        assertThat(index.searchQuizzes("java", 0, 10)).containsExactly(20L);
+
+        index.tagRemoved(2L);
+        assertThat(index.matchingTags("java")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void renamingOntoAnotherCaseKeepsBothPostings() {
+        index.tagSaved(3L, "Kotlin");
+        index.quizzTagsChanged(30L, Map.of(3L, "Kotlin"));
+
+        index.tagSaved(3L, "JAVA");
+
+        assertThat(index.matchingTags("kotlin")).isEmpty();
+        assertThat(index.matchingTags("java")).containsExactlyInAnyOrder("Java", "java", "JAVA");
+        assertThat(index.searchQuizzes("java", 0, 10)).containsExactly(10L, 20L, 30L);
+        index.tagRemoved(2L);
+        assertThat(index.searchQuizzes("java", 0, 10)).containsExactly(10L, 30L);
+    }
+
+    @Test
+    void relinkingDropsTheOldTagsOnly() {
+        index.quizzTagsChanged(10L, Map.of(2L, "java"));
+
+        index.tagRemoved(2L);
+        assertThat(index.searchQuizzes("java", 0, 10)).isEmpty();
+        assertThat(index.matchingTags("java")).containsExactly("Java");
+    }
+
+}
@@ -0,0 +1,97 @@
+package fr.loual.projectquizz.security.jwt;
+
+import fr.loual.projectquizz.security.tools.SecurityConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The codec reads the tokens signed by jjwt with the same secret, and jjwt reads the codec's tokens
+ */
+class Hs512JwtCodecTest {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("a secret long enough for a 512 bits hmac key, 64 bytes at least!".getBytes(StandardCharsets.UTF_8));
+
+    private final Hs512JwtCodec codec = new Hs512JwtCodec(SECRET);
+
+    @Test
+    void jjwtTokenIsDecoded() {
+        long now = System.currentTimeMillis() / 1000L * 1000L;
+        String token = Jwts.builder().setId("id-1").setSubject("alex \"quoted\"")
+                .claim(SecurityConstants.CLAIM_USER_ID, 42L)
+                .claim(SecurityConstants.CLAIM_ROLES, List.of("ROLE_USER", "ROLE_ADMIN"))
+                .setIssuedAt(new Date(now)).setExpiration(new Date(now + 60_000L))
+                .signWith(SignatureAlgorithm.HS512, SECRET).compact();
+
+        TokenClaims claims = codec.decode(token, now);
+
+        assertThat(claims.getSubject()).isEqualTo("alex \"quoted\"");
+        assertThat(claims.getId()).isEqualTo("id-1");
+        assertThat(claims.getUserId()).isEqualTo(42L);
+        assertThat(claims.getRoles()).containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(claims.getIssuedAt()).isEqualTo(now);
+        assertThat(claims.getExpiration()).isEqualTo(now + 60_000L);
+    }
+
+    @Test
+    void codecTokenIsParsedByJjwt() {
+        long now = System.currentTimeMillis() / 1000L * 1000L;
+        String token = codec.encode("alex \"quoted\"", now, now + 60_000L, 42L, List.of("ROLE_USER", "ROLE_ADMIN"), "id-1");
+
+        Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("alex \"quoted\"");
+        assertThat(claims.getId()).isEqualTo("id-1");
+        assertThat(((Number) claims.get(SecurityConstants.CLAIM_USER_ID)).longValue()).isEqualTo(42L);
+        assertThat(claims.get(SecurityConstants.CLAIM_ROLES)).isEqualTo(List.of("ROLE_USER", "ROLE_ADMIN"));
+        assertThat(claims.getIssuedAt()).isEqualTo(new Date(now));
+        assertThat(claims.getExpiration()).isEqualTo(new Date(now + 60_000L));
+    }
+
+    @Test
+    void tamperedTokenIsRefusedByBoth() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alex", now, now + 60_000L, null, null, null);
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("{\"sub\":\"admin\",\"exp\":" + (now / 1000L + 60L) + ",\"iat\":" + now / 1000L + "}")
+                        .getBytes(StandardCharsets.UTF_8));
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + payload + "." + parts[2];
+        char last = parts[2].charAt(0);
+        String resigned = parts[0] + "." + parts[1] + "." + (last == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        for (String tampered : List.of(forged, resigned)) {
+            assertThatThrownBy(() -> codec.decode(tampered, now)).isInstanceOf(SignatureException.class);
+            assertThatThrownBy(() -> Jwts.parser().setSigningKey(SECRET).parseClaimsJws(tampered))
+                    .isInstanceOf(SignatureException.class);
+        }
+        String otherSecret = Base64.getEncoder().encodeToString("another secret".repeat(5).getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> new Hs512JwtCodec(otherSecret).decode(token, now)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void expiredTokenIsRefusedByBoth() {
+        long now = System.currentTimeMillis();
+        String token = codec.encode("alex", now - 120_000L, now - 60_000L, null, null, null);
+        String jjwtToken = Jwts.builder().setSubject("alex").setIssuedAt(new Date(now - 120_000L))
+                .setExpiration(new Date(now - 60_000L)).signWith(SignatureAlgorithm.HS512, SECRET).compact();
+
+        assertThatThrownBy(() -> codec.decode(token, now)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> codec.decode(jjwtToken, now)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+
+}
@@ -0,0 +1,30 @@
+package fr.loual.projectquizz.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Used ids are refused, by the exact set while the bucket has room and by the Bloom filter alone after
+ */
+class RefreshTokenRevocationStoreTest {
+
+    private static final long EXPIRATION = 3_600_000L;
+
+    @Test
+    void idsPastTheExactCapAreRefusedByTheBloomFilterAndCounted() {
+        RefreshTokenRevocationStore store = new RefreshTokenRevocationStore(60_000L, 1000, 1);
+
+        assertThat(store.markUsed("first", EXPIRATION, 0L)).isTrue();
+        assertThat(store.markUsed("second", EXPIRATION, 0L)).isTrue();
+
+        assertThat(store.isRevoked("first", EXPIRATION)).isTrue();
+        assertThat(store.bloomOnlyRejections()).isZero();
+        assertThat(store.isRevoked("second", EXPIRATION)).isTrue();
+        assertThat(store.markUsed("second", EXPIRATION, 0L)).isFalse();
+        assertThat(store.bloomOnlyRejections()).isEqualTo(2);
+        assertThat(store.isRevoked("never used", EXPIRATION)).isFalse();
+        assertThat(store.bloomOnlyRejections()).isEqualTo(2);
+    }
+
+}
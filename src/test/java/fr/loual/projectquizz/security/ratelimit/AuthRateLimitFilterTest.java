@@ -0,0 +1,65 @@
+package fr.loual.projectquizz.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The signin body reaches the controller whole, or is refused
+ */
+class AuthRateLimitFilterTest {
+
+    private final AuthRateLimitFilter filter = new AuthRateLimitFilter(
+            new TokenBucketRateLimiter("ip", 100, 100, 1000, 60),
+            new TokenBucketRateLimiter("username", 100, 100, 1000, 60), new ObjectMapper());
+
+    @Test
+    void bodyUnderTheLimitIsReplayedWhole() throws Exception {
+        String body = "{\"username\":\"alex\",\"password\":\"" + "p".repeat(8000) + "\"}";
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(signin(body, true), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        HttpServletRequest forwarded = (HttpServletRequest) chain.getRequest();
+        assertThat(new String(forwarded.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void bodyOverTheLimitIsRefused() throws Exception {
+        String body = "{\"username\":\"alex\",\"password\":\"" + "p".repeat(9000) + "\"}";
+        for (boolean withLength : new boolean[]{true, false}) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(signin(body, withLength), response, chain);
+
+            assertThat(response.getStatus()).isEqualTo(413);
+            assertThat(chain.getRequest()).isNull();
+        }
+    }
+
+    private static MockHttpServletRequest signin(String body, boolean withLength) {
+        // without length, a chunked body whose size is only known once read
+        MockHttpServletRequest request = withLength ? new MockHttpServletRequest("POST", "/user/signin")
+                : new MockHttpServletRequest("POST", "/user/signin") {
+                    @Override
+                    public long getContentLengthLong() {
+                        return -1;
+                    }
+                };
+        request.setServletPath("/user/signin");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+}
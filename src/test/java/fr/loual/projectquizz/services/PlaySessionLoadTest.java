@@ -0,0 +1,172 @@
+package fr.loual.projectquizz.services;
+
+import fr.loual.projectquizz.exceptions.PlaySessionNotFoundException;
+import fr.loual.projectquizz.exceptions.QuizzDeletedException;
+import fr.loual.projectquizz.leaderboard.LeaderboardService;
+import fr.loual.projectquizz.model.dtos.PlayQuestion;
+import fr.loual.projectquizz.model.dtos.PlayScore;
+import fr.loual.projectquizz.model.dtos.PostedAnswer;
+import fr.loual.projectquizz.model.entities.Answer;
+import fr.loual.projectquizz.model.entities.Question;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.play.PlaySessionStore;
+import fr.loual.projectquizz.repositories.AnswerRepository;
+import fr.loual.projectquizz.repositories.QuestionRepository;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.QuizzResultRepository;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Thousands of sessions played at the same time on one quizz: the quizz is loaded once,
+ * nothing is written while playing, each finished session saves exactly one result and is ranked
+ */
+@SpringBootTest
+class PlaySessionLoadTest {
+
+    private static final int SESSIONS = 2000;
+    private static final int THREADS = 32;
+    private static final int QUESTIONS = 10;
+
+    @Autowired
+    private PlayService playService;
+    @Autowired
+    private PlaySessionStore sessionStore;
+    @Autowired
+    private QuizzResultRepository quizzResultRepository;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
+    private QuizzService quizzService;
+    @Autowired
+    private AnswerService answerService;
+
+    @Test
+    void thousandsOfConcurrentSessions() throws Exception {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        Quizz quizz = createQuizz(user);
+        long resultsBefore = quizzResultRepository.count();
+        double loadsBefore = meterRegistry.get("play.snapshots.loads").functionCounter().count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> started = new ArrayList<>(SESSIONS);
+            for (int i = 0; i < SESSIONS; i++) {
+                started.add(executor.submit(() -> playService.start(quizz.getId(), user.getUsername(), user.getId())
+                        .orElseThrow().getSessionId()));
+            }
+            List<String> sessionIds = new ArrayList<>(SESSIONS);
+            for (Future<String> future : started) {
+                sessionIds.add(future.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(sessionStore.size()).isGreaterThanOrEqualTo(SESSIONS);
+
+            List<Future<PlayScore>> played = new ArrayList<>(SESSIONS);
+            for (int i = 0; i < SESSIONS; i++) {
+                String sessionId = sessionIds.get(i);
+                boolean right = i % 2 == 0;
+                played.add(executor.submit(() -> play(sessionId, user.getUsername(), right)));
+            }
+            for (int i = 0; i < SESSIONS; i++) {
+                PlayScore score = played.get(i).get(60, TimeUnit.SECONDS);
+                assertThat(score.isFinished()).isTrue();
+                assertThat(score.getScore()).isEqualTo(i % 2 == 0 ? QUESTIONS : 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(meterRegistry.get("play.snapshots.loads").functionCounter().count() - loadsBefore).isEqualTo(1.0);
+        assertThat(quizzResultRepository.count() - resultsBefore).isEqualTo(SESSIONS);
+        // every session is played by the same user, ranked once with their best score
+        assertThat(leaderboardService.quizzTop(quizz.getId(), 10)).hasSize(1);
+        assertThat(leaderboardService.quizzRank(quizz.getId(), user.getId()).orElseThrow().getScore()).isEqualTo(QUESTIONS);
+    }
+
+    @Test
+    void sessionIsKeptWhenItsResultCanNotBeSaved() {
+        Quizz quizz = createQuizz(userRepository.findByUsername("alex").orElseThrow());
+        // a player unknown to the database, the result then references a missing row
+        String sessionId = playService.start(quizz.getId(), "ghost", Long.MAX_VALUE).orElseThrow().getSessionId();
+
+        assertThatThrownBy(() -> playService.finish(sessionId, "ghost")).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(sessionStore.get(sessionId, "ghost").getId()).isEqualTo(sessionId);
+    }
+
+    @Test
+    void sessionOnADeletedQuizzEndsWithoutResult() {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("deleted").setUser(user));
+        String sessionId = playService.start(quizz.getId(), user.getUsername(), user.getId()).orElseThrow().getSessionId();
+
+        quizzService.deleteQuizz(quizz.getId());
+
+        assertThat(playService.start(quizz.getId(), user.getUsername(), user.getId())).isEmpty();
+        assertThatThrownBy(() -> playService.finish(sessionId, user.getUsername())).isInstanceOf(QuizzDeletedException.class);
+        assertThatThrownBy(() -> sessionStore.get(sessionId, user.getUsername())).isInstanceOf(PlaySessionNotFoundException.class);
+    }
+
+    @Test
+    void editedQuizzIsPlayedOnItsNewSnapshot() {
+        AppUser user = userRepository.findByUsername("alex").orElseThrow();
+        Quizz quizz = createQuizz(user);
+        String before = playService.start(quizz.getId(), user.getUsername(), user.getId()).orElseThrow().getSessionId();
+        Long questionId = playService.next(before, user.getUsername()).orElseThrow().getQuestionId();
+
+        answerService.saveAnswer(new PostedAnswer().setAnswer("added").setCorrect(false).setQuestionId(questionId));
+
+        String after = playService.start(quizz.getId(), user.getUsername(), user.getId()).orElseThrow().getSessionId();
+        assertThat(playService.next(after, user.getUsername()).orElseThrow().getChoices()).hasSize(5);
+        // the running session keeps the snapshot it started on
+        assertThat(playService.next(before, user.getUsername()).orElseThrow().getChoices()).hasSize(4);
+    }
+
+    private PlayScore play(String sessionId, String username, boolean right) {
+        PlayQuestion question;
+        while ((question = playService.next(sessionId, username).orElse(null)) != null) {
+            // the first answer of each question is the correct one
+            Long chosen = question.getChoices().get(right ? 0 : 1).getId();
+            playService.submit(sessionId, username, new PostedAnswer()
+                    .setQuestionId(question.getQuestionId()).setAnswerIds(List.of(chosen)));
+        }
+        return playService.finish(sessionId, username);
+    }
+
+    private Quizz createQuizz(AppUser user) {
+        Quizz quizz = quizzRepository.save(new Quizz().setDescription("load").setCommentary("load").setUser(user));
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = questionRepository.save(new Question().setQuizzQuestion("question " + i)
+                    .setChoiceType(true).setFreeResponse(false).setUser(user).setQuizz(quizz));
+            for (int j = 0; j < 4; j++) {
+                answerRepository.save(new Answer().setQuizzAnswer("answer " + j).setCorrect(j == 0).setQuestion(question));
+            }
+        }
+        return quizz;
+    }
+
+}
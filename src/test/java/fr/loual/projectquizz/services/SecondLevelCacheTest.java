@@ -0,0 +1,144 @@
+package fr.loual.projectquizz.services;
+
+import fr.loual.projectquizz.mapping.TagResolver;
+import fr.loual.projectquizz.model.dtos.PostedQuizz;
+import fr.loual.projectquizz.model.dtos.QuizzView;
+import fr.loual.projectquizz.model.entities.Quizz;
+import fr.loual.projectquizz.model.entities.Tags;
+import fr.loual.projectquizz.repositories.QuizzRepository;
+import fr.loual.projectquizz.repositories.TagsRepository;
+import fr.loual.projectquizz.security.model.entities.AppRole;
+import fr.loual.projectquizz.security.model.entities.AppUser;
+import fr.loual.projectquizz.security.repositories.AppRoleRepository;
+import fr.loual.projectquizz.security.repositories.AppUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quizzes, tags, roles and the tag listings are read from the second-level cache, and the writes made through
+ * the services are seen by the next reads
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+
+    private static final String QUIZZ_REGION = Quizz.class.getName();
+
+    @Autowired
+    private QuizzService quizzService;
+    @Autowired
+    private QuizzReadService quizzReadService;
+    @Autowired
+    private QuizzRepository quizzRepository;
+    @Autowired
+    private TagsRepository tagsRepository;
+    @Autowired
+    private AppRoleRepository roleRepository;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private TagResolver tagResolver;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry registry;
+
+    private Statistics statistics;
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.findByUsername("alex").orElseThrow();
+    }
+
+    @Test
+    void quizzAndItsTagsAreReadFromTheCacheUntilDeleted() {
+        quizzService.saveQuizz(new PostedQuizz().setUser(user).setDescription("cached").setTags(List.of("cached")));
+        Long id = quizzRepository.findViewsByTag("cached", 0L, PageRequest.of(0, 1)).get(0).getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> quizzService.findQuizzById(id).getTags().size());
+
+        statistics.clear();
+        List<String> tags = transaction.execute(status -> names(quizzService.findQuizzById(id).getTags()));
+        assertThat(tags).containsExactly("cached");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(QUIZZ_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(QUIZZ_REGION + ".tags").getHitCount()).isEqualTo(1);
+        assertThat(registry.get("hibernate.cache.hit.ratio").tag("region", QUIZZ_REGION).gauge().value()).isEqualTo(1.0);
+
+        quizzService.deleteQuizz(id);
+        assertThat(quizzService.findQuizzById(id)).isNull();
+    }
+
+    @Test
+    void tagListingIsCachedUntilAQuizzIsSavedWithTheTag() {
+        quizzService.saveQuizz(new PostedQuizz().setUser(user).setDescription("first listed").setTags(List.of("listed")));
+        assertThat(listed()).containsExactly("first listed");
+
+        statistics.clear();
+        assertThat(listed()).containsExactly("first listed");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+        assertThat(registry.get("hibernate.cache.hit.ratio").tag("region", "default-query-results-region").gauge().value())
+                .isBetween(0.0, 1.0);
+
+        quizzService.saveQuizz(new PostedQuizz().setUser(user).setDescription("second listed").setTags(List.of("listed")));
+        assertThat(listed()).containsExactly("first listed", "second listed");
+    }
+
+    @Test
+    void renamedTagIsReloadedAndForgottenByTheResolver() {
+        Tags tag = tagResolver.resolve(List.of("before rename")).get("before rename");
+        tagsRepository.findById(tag.getId());
+
+        statistics.clear();
+        assertThat(tagsRepository.findById(tag.getId())).get().extracting(Tags::getTag).isEqualTo("before rename");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        tagsRepository.save(new Tags(tag.getId(), "after rename"));
+        assertThat(tagsRepository.findById(tag.getId())).get().extracting(Tags::getTag).isEqualTo("after rename");
+        assertThat(tagResolver.resolve(List.of("after rename")).get("after rename").getId()).isEqualTo(tag.getId());
+        assertThat(tagResolver.resolve(List.of("before rename")).get("before rename").getId()).isNotEqualTo(tag.getId());
+    }
+
+    @Test
+    void rolesAreReadOnlyReferenceData() {
+        AppRole role = roleRepository.findAll().iterator().next();
+        roleRepository.findById(role.getId());
+
+        statistics.clear();
+        assertThat(roleRepository.findById(role.getId())).get().extracting(AppRole::getName).isEqualTo(role.getName());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    private List<String> listed() {
+        List<String> descriptions = new ArrayList<>();
+        for (QuizzView quizz : quizzReadService.findQuizzesByTag("listed", null, 10).getItems()) {
+            descriptions.add(quizz.getDescription());
+        }
+        return descriptions;
+    }
+
+    private static List<String> names(List<Tags> tags) {
+        List<String> names = new ArrayList<>();
+        tags.forEach(tag -> names.add(tag.getTag()));
+        return names;
+    }
+
+}